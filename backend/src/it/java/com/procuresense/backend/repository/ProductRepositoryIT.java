@@ -0,0 +1,88 @@
+package com.procuresense.backend.repository;
+
+import com.procuresense.backend.PostgresIntegrationTest;
+import com.procuresense.backend.model.Product;
+import com.procuresense.backend.model.ProductUpsert;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class ProductRepositoryIT extends PostgresIntegrationTest {
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void cleanDb() {
+        jdbcTemplate.execute("truncate purchases, products restart identity cascade");
+    }
+
+    @Test
+    void upsertReturnsInsertedChangedAndUnchangedSkus() {
+        productRepository.upsertAllBySku(List.of(product("SKU-1", "Cleaner"), product("SKU-2", "Gloves")));
+
+        ProductUpsert upsert = productRepository.upsertAllBySku(
+                List.of(product("SKU-1", "Cleaner"), product("SKU-2", "Nitrile Gloves"), product("SKU-3", "Mop")));
+
+        assertThat(upsert.ids()).containsOnlyKeys("SKU-1", "SKU-2", "SKU-3");
+        assertThat(upsert.renamed()).isTrue();
+        assertThat(jdbcTemplate.queryForObject("select name from products where sku = 'SKU-2'", String.class))
+                .isEqualTo("Nitrile Gloves");
+    }
+
+    @Test
+    void upsertReportsNoRenameWhenOnlyOtherAttributesChange() {
+        productRepository.upsertAllBySku(List.of(product("SKU-1", "Cleaner")));
+        Product repriced = product("SKU-1", "Cleaner");
+        repriced.setUnitPrice(new BigDecimal("11.49"));
+
+        assertThat(productRepository.upsertAllBySku(List.of(repriced, product("SKU-2", "Mop"))).renamed()).isFalse();
+    }
+
+    @Test
+    void upsertReturnsSkusCommittedByAConcurrentImportMidStatement() throws Exception {
+        try (Connection other = POSTGRES.getPostgresDatabase().getConnection()) {
+            other.setAutoCommit(false);
+            try (Statement statement = other.createStatement()) {
+                statement.executeUpdate("insert into products (sku, name, category, unit_price) "
+                        + "values ('SKU-9', 'Cleaner', 'Supplies', 9.99)");
+            }
+            // blocks on the uncommitted SKU-9 row, then finds it unchanged and outside its snapshot
+            CompletableFuture<Map<String, Long>> upsert = CompletableFuture.supplyAsync(() -> productRepository
+                    .upsertAllBySku(List.of(product("SKU-9", "Cleaner"), product("SKU-10", "Mop"))).ids());
+            Thread.sleep(300);
+            other.commit();
+
+            Map<String, Long> ids = upsert.get(10, TimeUnit.SECONDS);
+
+            assertThat(ids).containsOnlyKeys("SKU-9", "SKU-10");
+            assertThat(ids.get("SKU-9")).isEqualTo(
+                    jdbcTemplate.queryForObject("select id from products where sku = 'SKU-9'", Long.class));
+        }
+    }
+
+    private Product product(String sku, String name) {
+        Product product = new Product();
+        product.setSku(sku);
+        product.setName(name);
+        product.setCategory("Supplies");
+        product.setUnitPrice(new BigDecimal("9.99"));
+        return product;
+    }
+}
@@ -0,0 +1,70 @@
+package com.procuresense.backend.repository;
+
+import com.procuresense.backend.PostgresIntegrationTest;
+import com.procuresense.backend.model.ReorderInsight;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class ReorderInsightRepositoryIT extends PostgresIntegrationTest {
+
+    @Autowired
+    private ReorderInsightRepository reorderInsightRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void cleanDb() {
+        jdbcTemplate.execute("truncate reorder_insights restart identity");
+    }
+
+    @Test
+    void upsertingAPageTwiceUpdatesExistingSkusAndInsertsNewOnes() {
+        reorderInsightRepository.upsertAll(List.of(
+                insight("SKU-1", "2024-03-01T09:00:00+02:00", "first"),
+                insight("SKU-2", "2024-03-02T09:00:00Z", "second")));
+
+        reorderInsightRepository.upsertAll(List.of(
+                insight("SKU-1", "2024-03-08T09:00:00-05:00", "first again"),
+                insight("SKU-3", "2024-03-03T09:00:00Z", "third")));
+
+        Map<String, ReorderInsight> stored = reorderInsightRepository
+                .findByOrgIdAndSkuIn("org-a", List.of("SKU-1", "SKU-2", "SKU-3")).stream()
+                .collect(Collectors.toMap(ReorderInsight::getSku, Function.identity()));
+        assertThat(stored).containsOnlyKeys("SKU-1", "SKU-2", "SKU-3");
+        assertThat(stored.get("SKU-1").getExplanationText()).isEqualTo("first again");
+        assertThat(stored.get("SKU-1").getLastPurchaseAt())
+                .isAtSameInstantAs(OffsetDateTime.parse("2024-03-08T09:00:00-05:00"));
+        assertThat(stored.get("SKU-1").getPredictedReorderAt())
+                .isAtSameInstantAs(OffsetDateTime.parse("2024-03-15T09:00:00-05:00"));
+        assertThat(stored.get("SKU-2").getExplanationText()).isEqualTo("second");
+        assertThat(stored.get("SKU-3").getLastPurchaseAt())
+                .isAtSameInstantAs(OffsetDateTime.parse("2024-03-03T09:00:00Z"));
+    }
+
+    private ReorderInsight insight(String sku, String lastPurchaseAt, String explanation) {
+        OffsetDateTime last = OffsetDateTime.parse(lastPurchaseAt);
+        ReorderInsight insight = new ReorderInsight();
+        insight.setOrgId("org-a");
+        insight.setSku(sku);
+        insight.setLastPurchaseAt(last);
+        insight.setPredictedReorderAt(last.plusDays(7));
+        insight.setMedianDaysBetween(7);
+        insight.setConfidence(0.8);
+        insight.setExplanationText(explanation);
+        insight.setFingerprint(sku + "|" + explanation);
+        return insight;
+    }
+}
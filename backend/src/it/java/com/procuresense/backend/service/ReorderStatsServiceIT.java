@@ -0,0 +1,126 @@
+package com.procuresense.backend.service;
+
+import com.procuresense.backend.PostgresIntegrationTest;
+import com.procuresense.backend.model.ReorderPrediction;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = "purchase.import.chunk-size=5")
+class ReorderStatsServiceIT extends PostgresIntegrationTest {
+
+    private static final OffsetDateTime START = OffsetDateTime.parse("2024-01-01T08:00:00Z");
+
+    @Autowired
+    private ReorderStatsService reorderStatsService;
+
+    @Autowired
+    private PurchaseImportService purchaseImportService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void cleanDb() {
+        jdbcTemplate.execute("truncate purchases, products, purchase_import_files, purchase_load_audit, "
+                + "reorder_sku_stats, reorder_stats_state restart identity cascade");
+    }
+
+    @Test
+    void concurrentImportsOfTheSameSkusLoseNoMerges() throws Exception {
+        importCsv("busy-org", csv(0, 0, 2));
+        reorderStatsService.rebuild("busy-org");
+
+        // every upload touches the same SKUs, two of them new, with dates that interleave across uploads
+        List<Callable<Object>> uploads = new ArrayList<>();
+        for (int upload = 1; upload <= 6; upload++) {
+            int offset = upload;
+            uploads.add(() -> importCsv("busy-org", csv(offset, 6, 4)));
+        }
+        runTogether(uploads);
+
+        assertMatchesFullRebuild("busy-org", 4);
+    }
+
+    @Test
+    void rebuildsRunningDuringImportsLeaveConsistentRows() throws Exception {
+        importCsv("rebuilt-org", csv(0, 0, 3));
+
+        List<Callable<Object>> work = new ArrayList<>();
+        for (int upload = 1; upload <= 4; upload++) {
+            int offset = upload;
+            work.add(() -> importCsv("rebuilt-org", csv(offset, 4, 3)));
+            work.add(() -> {
+                reorderStatsService.rebuild("rebuilt-org");
+                return null;
+            });
+        }
+        runTogether(work);
+
+        assertMatchesFullRebuild("rebuilt-org", 3);
+    }
+
+    private void assertMatchesFullRebuild(String orgId, int skus) {
+        List<ReorderPrediction> maintained = reorderStatsService.findPredictions(orgId, null, Limit.unlimited());
+        reorderStatsService.rebuild(orgId);
+
+        assertThat(maintained).hasSize(skus);
+        assertThat(maintained).isEqualTo(reorderStatsService.findPredictions(orgId, null, Limit.unlimited()));
+    }
+
+    private void runTogether(List<Callable<Object>> tasks) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(tasks.size());
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<Object>> futures = new ArrayList<>();
+            for (Callable<Object> task : tasks) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return task.call();
+                }));
+            }
+            start.countDown();
+            for (Future<Object> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private Object importCsv(String orgId, String csv) {
+        return purchaseImportService.importCsv(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)),
+                "text/csv", orgId, null, ImportProgressListener.NONE);
+    }
+
+    // purchases of SKU-0..SKU-(skus-1) on days offset, offset + stride, ... so uploads interleave in time
+    private String csv(int offset, int stride, int skus) {
+        StringBuilder csv = new StringBuilder("order_id,sku,product_name,category,quantity,unit_price,purchased_at\n");
+        for (int purchase = 0; purchase < 3; purchase++) {
+            long day = offset + (long) purchase * Math.max(stride, 1) * 3;
+            for (int sku = 0; sku < skus; sku++) {
+                csv.append("ORD-").append(offset).append('-').append(purchase).append(",SKU-").append(sku)
+                        .append(",Item ").append(sku).append(",Office,").append(1 + sku).append(",1.00,")
+                        .append(START.plusDays(day * (sku + 1))).append('\n');
+            }
+        }
+        return csv.toString();
+    }
+}
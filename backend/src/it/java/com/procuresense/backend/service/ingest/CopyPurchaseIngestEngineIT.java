@@ -0,0 +1,179 @@
+package com.procuresense.backend.service.ingest;
+
+import com.procuresense.backend.PostgresIntegrationTest;
+import com.procuresense.backend.model.PurchaseImportResponse;
+import com.procuresense.backend.service.PurchaseImportService;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {"purchase.import.engine=copy", "purchase.import.chunk-size=3"})
+class CopyPurchaseIngestEngineIT extends PostgresIntegrationTest {
+
+    private static final OffsetDateTime JAN = OffsetDateTime.parse("2024-01-05T09:00:00Z");
+
+    @Autowired
+    private PurchaseIngestEngine ingestEngine;
+
+    @Autowired
+    private PurchaseImportService purchaseImportService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    void cleanDb() {
+        jdbcTemplate.execute("truncate purchases, products, purchase_import_files, purchase_load_audit, "
+                + "reorder_sku_stats, reorder_stats_state restart identity cascade");
+    }
+
+    @Test
+    void copyEngineIsSelected() {
+        assertThat(ingestEngine).isInstanceOf(CopyPurchaseIngestEngine.class);
+    }
+
+    @Test
+    void writeChunkReturnsTheFirstLineOfEachNewNaturalKeyInFileOrder() {
+        PurchaseRow first = row("ORD-1", "SKU-1", "Cleaner \"Pro\", 5L", 2, JAN);
+        PurchaseRow second = row("ORD-1", "SKU-2", "Gloves", 1, JAN);
+        PurchaseRow repeatOfFirst = row("ORD-1", "SKU-1", "Cleaner \"Pro\", 5L", 7, JAN);
+        PurchaseRow third = row("ORD-2", "SKU-1", "Cleaner \"Pro\", 5L", 3, JAN.plusDays(14));
+
+        List<PurchaseRow> inserted = writeChunk("org-copy", List.of(first, second, repeatOfFirst, third));
+
+        assertThat(inserted).containsExactly(first, second, third);
+        assertThat(jdbcTemplate.queryForObject(
+                "select quantity from purchases where order_id = 'ORD-1' and product_id = "
+                        + "(select id from products where sku = 'SKU-1')", Integer.class)).isEqualTo(2);
+        assertThat(jdbcTemplate.queryForObject(
+                "select name from products where sku = 'SKU-1'", String.class)).isEqualTo("Cleaner \"Pro\", 5L");
+    }
+
+    @Test
+    void writeChunkSkipsKeysStoredByEarlierChunksAndKeepsOrgsApart() {
+        PurchaseRow stored = row("ORD-1", "SKU-1", "Cleaner", 2, JAN);
+        writeChunk("org-copy", List.of(stored));
+
+        PurchaseRow fresh = row("ORD-3", "SKU-3", "Mop", 1, JAN.plusDays(3));
+        assertThat(writeChunk("org-copy", List.of(stored, fresh))).containsExactly(fresh);
+        assertThat(writeChunk("org-other", List.of(stored))).containsExactly(stored);
+
+        assertThat(jdbcTemplate.queryForObject("select count(*) from purchases", Long.class)).isEqualTo(3);
+    }
+
+    @Test
+    void sessionReportsProductsWhoseNameAChunkChanged() {
+        writeChunk("org-copy", List.of(row("ORD-1", "SKU-1", "Cleaner", 1, JAN)));
+
+        // each chunk commits on its own, as in an import
+        PurchaseIngestEngine.Session session = ingestEngine.openSession("org-copy");
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.execute(status -> session.writeChunk(
+                List.of(row("ORD-2", "SKU-1", "Cleaner", 1, JAN.plusDays(7)))));
+        assertThat(session.renamedProducts()).isFalse();
+
+        transaction.execute(status -> session.writeChunk(
+                List.of(row("ORD-3", "SKU-1", "Cleaner Pro", 1, JAN.plusDays(14)))));
+        assertThat(session.renamedProducts()).isTrue();
+    }
+
+    @Test
+    void writeChunkResolvesSkusCommittedByAConcurrentImport() throws Exception {
+        try (Connection other = POSTGRES.getPostgresDatabase().getConnection()) {
+            other.setAutoCommit(false);
+            try (Statement statement = other.createStatement()) {
+                statement.executeUpdate("insert into products (sku, name, category, unit_price) "
+                        + "values ('SKU-9', 'Cleaner', 'Supplies', 9.99)");
+            }
+            PurchaseRow row = row("ORD-9", "SKU-9", "Cleaner", 1, JAN);
+            CompletableFuture<List<PurchaseRow>> write = CompletableFuture.supplyAsync(
+                    () -> writeChunk("org-copy", List.of(row)));
+            Thread.sleep(300);
+            other.commit();
+
+            assertThat(write.get(10, TimeUnit.SECONDS)).containsExactly(row);
+        }
+    }
+
+    @Test
+    void importCsvThroughCopyCountsImportedDuplicateAndRejectedRows() {
+        String csv = """
+                order_id,sku,product_name,category,quantity,unit_price,purchased_at
+                ORD-100,SKU-2001,Bio Cleaner,Cleaning,4,19.99,2024-02-01T09:00:00Z
+                ORD-100,SKU-2001,Bio Cleaner,Cleaning,4,19.99,2024-02-01T09:00:00Z
+                ORD-101,SKU-2001,Bio Cleaner,Cleaning,5,19.99,2024-02-15T09:00:00Z
+                ORD-102,SKU-2001,Bio Cleaner,Cleaning,,19.99,2024-03-01T09:00:00Z
+                ORD-103,SKU-2001,Bio Cleaner,Cleaning,6,19.99,2024-03-01T09:00:00Z
+                """;
+
+        PurchaseImportResponse response = purchaseImportService.importCsv(new MockMultipartFile(
+                "file", "purchases.csv", "text/csv", csv.getBytes(StandardCharsets.UTF_8)), "org-csv");
+
+        assertThat(response.importedRows()).isEqualTo(3);
+        assertThat(response.duplicateRows()).isEqualTo(1);
+        assertThat(response.rejectedRows()).isEqualTo(1);
+        assertThat(jdbcTemplate.queryForObject(
+                "select count(*) from purchases where org_id = 'org-csv'", Long.class)).isEqualTo(3);
+    }
+
+    @Test
+    void migrationsDeduplicatePurchasesBeforeAddingTheNaturalKeyIndex() {
+        jdbcTemplate.execute("drop database if exists migration_check");
+        jdbcTemplate.execute("create database migration_check");
+        SingleConnectionDataSource dataSource = new SingleConnectionDataSource(
+                POSTGRES.getJdbcUrl("postgres", "migration_check"), true);
+        try {
+            Flyway.configure().dataSource(dataSource).target("7").load().migrate();
+            JdbcTemplate legacy = new JdbcTemplate(dataSource);
+            legacy.update("insert into products (sku, name, unit_price) values ('SKU-1', 'Cleaner', 9.99)");
+            for (String orderId : List.of("ORD-1", "ORD-1", "ORD-2", "ORD-1")) {
+                legacy.update("insert into purchases (org_id, order_id, product_id, quantity, unit_price, purchased_at) "
+                        + "values ('org-a', ?, 1, 1, 9.99, '2024-01-05T09:00:00Z')", orderId);
+            }
+
+            Flyway.configure().dataSource(dataSource).load().migrate();
+
+            assertThat(legacy.queryForList("select id from purchases order by id", Long.class))
+                    .containsExactly(1L, 3L);
+            assertThat(legacy.queryForList("select indexname from pg_indexes where tablename = 'purchases'", String.class))
+                    .contains("uq_purchases_natural_key", "idx_purchases_org_purchased_at");
+            assertThat(legacy.queryForList("select table_name || '.' || column_name || ':' || is_nullable "
+                    + "from information_schema.columns where (table_name, column_name) in "
+                    + "(('reorder_sku_stats', 'interval_histogram'), ('reorder_stats_state', 'built_at'))", String.class))
+                    .containsExactlyInAnyOrder("reorder_sku_stats.interval_histogram:NO", "reorder_stats_state.built_at:YES");
+        } finally {
+            dataSource.destroy();
+            jdbcTemplate.execute("drop database if exists migration_check");
+        }
+    }
+
+    private List<PurchaseRow> writeChunk(String orgId, List<PurchaseRow> rows) {
+        return new TransactionTemplate(transactionManager)
+                .execute(status -> ingestEngine.openSession(orgId).writeChunk(rows));
+    }
+
+    private PurchaseRow row(String orderId, String sku, String name, int quantity, OffsetDateTime purchasedAt) {
+        return new PurchaseRow(orderId, sku, name, "Supplies", quantity, new BigDecimal("9.99"), purchasedAt);
+    }
+}
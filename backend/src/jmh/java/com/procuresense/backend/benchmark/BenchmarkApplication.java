@@ -0,0 +1,22 @@
+package com.procuresense.backend.benchmark;
+
+import com.procuresense.backend.ProcureSenseApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+final class BenchmarkApplication {
+
+    private BenchmarkApplication() {
+    }
+
+    // the "test" profile runs against in-memory H2, so benchmarks need no external database
+    static ConfigurableApplicationContext start(String... properties) {
+        return new SpringApplicationBuilder(ProcureSenseApplication.class)
+                .web(WebApplicationType.NONE)
+                .profiles("test")
+                .properties("logging.level.root=WARN")
+                .properties(properties)
+                .run();
+    }
+}
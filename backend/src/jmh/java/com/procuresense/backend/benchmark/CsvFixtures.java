@@ -0,0 +1,72 @@
+package com.procuresense.backend.benchmark;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+import java.util.SplittableRandom;
+
+// Deterministic purchase exports for benchmarks, cached under target/jmh-fixtures so the
+// multi-million-row files are generated once per machine.
+final class CsvFixtures {
+
+    static final String HEADER = "order_id,sku,product_name,category,quantity,unit_price,purchased_at";
+    static final int SKU_COUNT = 5_000;
+
+    private static final String[] CATEGORIES = {"Cleaning", "Logistics", "Safety", "Office", "Supplies"};
+    private static final OffsetDateTime START = OffsetDateTime.of(2023, 1, 1, 8, 0, 0, 0, ZoneOffset.UTC);
+    private static final Path DIRECTORY = Paths.get("target", "jmh-fixtures");
+
+    private CsvFixtures() {
+    }
+
+    static Path purchases(int rows, double dirtyRatio) {
+        Path file = DIRECTORY.resolve(String.format(Locale.ROOT, "purchases-%d-%.2f.csv", rows, dirtyRatio));
+        if (Files.exists(file)) {
+            return file;
+        }
+        try {
+            Files.createDirectories(DIRECTORY);
+            Path partial = Files.createTempFile(DIRECTORY, "purchases-", ".tmp");
+            try (BufferedWriter writer = Files.newBufferedWriter(partial, StandardCharsets.UTF_8)) {
+                writer.write(HEADER);
+                writer.newLine();
+                SplittableRandom random = new SplittableRandom(rows);
+                for (int i = 0; i < rows; i++) {
+                    writer.write(line(random, i, dirtyRatio));
+                    writer.newLine();
+                }
+            }
+            Files.move(partial, file, StandardCopyOption.REPLACE_EXISTING);
+            return file;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    static String line(SplittableRandom random, int index, double dirtyRatio) {
+        int sku = random.nextInt(SKU_COUNT);
+        String orderId = "ORD-" + index / 4;
+        String quantity = Integer.toString(1 + random.nextInt(48));
+        String unitPrice = (1 + sku % 200) + "." + String.format("%02d", sku % 100);
+        String purchasedAt = START.plusMinutes(index * 7L).format(DateTimeFormatter.ISO_OFFSET_DATE_TIME);
+        if (random.nextDouble() < dirtyRatio) {
+            switch (random.nextInt(4)) {
+                case 0 -> quantity = "n/a";
+                case 1 -> unitPrice = "-" + unitPrice;
+                case 2 -> purchasedAt = "01/02/2024";
+                default -> quantity = "0";
+            }
+        }
+        return orderId + ",SKU-" + sku + ",\"Product " + sku + "\"," + CATEGORIES[sku % CATEGORIES.length] + ','
+                + quantity + ',' + unitPrice + ',' + purchasedAt;
+    }
+}
@@ -0,0 +1,46 @@
+package com.procuresense.backend.benchmark;
+
+import com.procuresense.backend.service.ingest.PurchaseCsvSchema;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HeaderNormalizationBenchmark {
+
+    private Map<String, Integer> headerMap;
+
+    @Setup
+    public void setUp() {
+        headerMap = new LinkedHashMap<>();
+        String[] exported = {" Order_ID", "SKU ", "Product_Name", "CATEGORY", "Quantity", "Unit_Price", "Purchased_At"};
+        for (String header : exported) {
+            headerMap.put(header, headerMap.size());
+        }
+        // ERP exports carry many columns the import ignores
+        for (int i = 0; i < 24; i++) {
+            headerMap.put("Extra_Column_" + i, headerMap.size());
+        }
+    }
+
+    @Benchmark
+    public PurchaseCsvSchema normalize() {
+        return PurchaseCsvSchema.fromHeaderMap(headerMap);
+    }
+}
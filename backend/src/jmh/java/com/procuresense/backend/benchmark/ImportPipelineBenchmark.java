@@ -0,0 +1,91 @@
+package com.procuresense.backend.benchmark;
+
+import com.procuresense.backend.model.PurchaseImportResponse;
+import com.procuresense.backend.repository.PurchaseImportFileRepository;
+import com.procuresense.backend.repository.PurchaseRepository;
+import com.procuresense.backend.service.ImportProgressListener;
+import com.procuresense.backend.service.PurchaseImportService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+// full upload path (decode, parse, validate, resolve products, insert) into in-memory H2;
+// the "rows" secondary result is rows/s, and each invocation starts from an empty org
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 1, time = 10)
+@Measurement(iterations = 3, time = 10)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class ImportPipelineBenchmark {
+
+    private static final String ORG_ID = "bench-org";
+
+    @Param({"10000", "100000", "1000000", "5000000"})
+    private int rows;
+
+    @Param({"0.0", "0.25"})
+    private double dirtyRatio;
+
+    @Param({"1"})
+    private int parseParallelism;
+
+    private Path file;
+    private ConfigurableApplicationContext context;
+    private PurchaseImportService importService;
+    private PurchaseRepository purchaseRepository;
+    private PurchaseImportFileRepository importFileRepository;
+    private TransactionTemplate transactionTemplate;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        file = CsvFixtures.purchases(rows, dirtyRatio);
+        context = BenchmarkApplication.start("purchase.import.parse-parallelism=" + parseParallelism);
+        importService = context.getBean(PurchaseImportService.class);
+        purchaseRepository = context.getBean(PurchaseRepository.class);
+        importFileRepository = context.getBean(PurchaseImportFileRepository.class);
+        transactionTemplate = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+    }
+
+    @TearDown(Level.Invocation)
+    public void clearOrg() {
+        transactionTemplate.executeWithoutResult(status -> {
+            purchaseRepository.deleteByOrgId(ORG_ID);
+            importFileRepository.deleteByOrgId(ORG_ID);
+        });
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public PurchaseImportResponse importFile(RowCounter counter) throws IOException {
+        try (InputStream input = Files.newInputStream(file)) {
+            PurchaseImportResponse response = importService.importCsv(input, "text/csv", ORG_ID, null,
+                    ImportProgressListener.NONE);
+            counter.rows += rows;
+            return response;
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.procuresense.backend.benchmark;
+
+import com.procuresense.backend.service.ingest.PurchaseCsvParser;
+import com.procuresense.backend.service.ingest.PurchaseRow;
+import com.procuresense.backend.service.ingest.RowSink;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+// parse + validate only, no database; compare the "rows" rows/s across parallelism values
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParallelParseBenchmark {
+
+    @Param({"200000"})
+    private int rows;
+
+    @Param({"0.0"})
+    private double dirtyRatio;
+
+    @Param({"1", "2", "4", "8", "16", "32"})
+    private int parallelism;
+
+    private Path file;
+    private PurchaseCsvParser parser;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        file = CsvFixtures.purchases(rows, dirtyRatio);
+        parser = new PurchaseCsvParser(parallelism);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        parser.shutdown();
+    }
+
+    @Benchmark
+    public long parse(RowCounter counter) throws IOException {
+        CountingSink sink = new CountingSink();
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            parser.parse(reader, sink);
+        }
+        counter.rows += sink.accepted + sink.rejected;
+        return sink.accepted;
+    }
+
+    private static class CountingSink implements RowSink {
+        private long accepted;
+        private long rejected;
+
+        @Override
+        public void accept(PurchaseRow row) {
+            accepted++;
+        }
+
+        @Override
+        public void reject(long recordNumber, String message) {
+            rejected++;
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.procuresense.backend.benchmark;
+
+import com.procuresense.backend.model.Product;
+import com.procuresense.backend.model.ProductUpsert;
+import com.procuresense.backend.repository.ProductRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// resolves one import chunk worth of SKUs against a seeded catalog; changedRatio of them
+// alternate their price on every call so the update branch is exercised too
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProductResolutionBenchmark {
+
+    @Param({"100", "1000"})
+    private int skus;
+
+    @Param({"0.0", "0.1"})
+    private double changedRatio;
+
+    private ConfigurableApplicationContext context;
+    private ProductRepository productRepository;
+    private long calls;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start();
+        productRepository = context.getBean(ProductRepository.class);
+        productRepository.upsertAllBySku(products(0));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public ProductUpsert resolve() {
+        return productRepository.upsertAllBySku(products(++calls));
+    }
+
+    private List<Product> products(long call) {
+        int changed = (int) (skus * changedRatio);
+        List<Product> products = new ArrayList<>(skus);
+        for (int i = 0; i < skus; i++) {
+            Product product = new Product();
+            product.setSku("BENCH-SKU-" + i);
+            product.setName("Product " + i);
+            product.setCategory("Supplies");
+            boolean bumped = i < changed && call % 2 == 1;
+            product.setUnitPrice(BigDecimal.valueOf(bumped ? 1_099 : 999, 2));
+            products.add(product);
+        }
+        return products;
+    }
+}
@@ -0,0 +1,176 @@
+package com.procuresense.backend.benchmark;
+
+import com.procuresense.backend.config.ReorderProperties;
+import com.procuresense.backend.model.Product;
+import com.procuresense.backend.model.Purchase;
+import com.procuresense.backend.model.PurchaseHistoryRow;
+import com.procuresense.backend.model.ReorderPrediction;
+import com.procuresense.backend.repository.PurchaseLoadAuditRepository;
+import com.procuresense.backend.repository.PurchaseRepository;
+import com.procuresense.backend.service.PurchaseLoadAuditService;
+import com.procuresense.backend.service.ReorderInsightService;
+import com.procuresense.backend.service.ReorderPredictionCache;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+// The java reorder engine over an in-memory purchase history, so only the per-SKU math is measured.
+// Scores are SKUs/s; with -prof gc, gc.alloc.rate.norm is bytes per SKU. legacyBoxed is the previous
+// implementation (grouping, re-sort, boxed intervals, sort-based median) kept as the baseline.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReorderPredictionBenchmark {
+
+    private static final int SKUS = 2_000;
+    private static final String ORG = "bench-org";
+
+    @Param({"8", "64"})
+    private int purchasesPerSku;
+
+    private List<Purchase> history;
+    private ReorderInsightService service;
+
+    @Setup
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(42);
+        history = new ArrayList<>(SKUS * purchasesPerSku);
+        List<PurchaseHistoryRow> rows = new ArrayList<>(SKUS * purchasesPerSku);
+        for (int sku = 0; sku < SKUS; sku++) {
+            Product product = new Product();
+            product.setId((long) sku);
+            product.setSku(String.format("SKU-%05d", sku));
+            product.setName("Item " + sku);
+            OffsetDateTime at = OffsetDateTime.parse("2020-01-01T08:00:00Z");
+            int cadence = 3 + random.nextInt(28);
+            for (int i = 0; i < purchasesPerSku; i++) {
+                Purchase purchase = new Purchase();
+                purchase.setOrgId(ORG);
+                purchase.setProduct(product);
+                purchase.setQuantity(1 + random.nextInt(20));
+                purchase.setUnitPrice(BigDecimal.ONE);
+                purchase.setPurchasedAt(at);
+                history.add(purchase);
+                rows.add(new PurchaseHistoryRow(product.getSku(), product.getName(), null, purchase.getQuantity(), at));
+                at = at.plusDays(cadence + random.nextInt(5) - 2).plusMinutes(random.nextInt(600));
+            }
+        }
+        PurchaseRepository repository = (PurchaseRepository) Proxy.newProxyInstance(
+                PurchaseRepository.class.getClassLoader(), new Class<?>[]{PurchaseRepository.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("streamPurchaseHistory")) {
+                        return rows.stream();
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+        service = new ReorderInsightService(repository, null,
+                new ReorderProperties(ReorderProperties.Engine.JAVA, null, 0, 0, null, null), new NoTransactionManager(),
+                Clock.systemUTC(), uncached());
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SKUS)
+    public List<ReorderPrediction> primitive() {
+        return service.computePredictions(ORG);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SKUS)
+    public List<ReorderPrediction> legacyBoxed() {
+        Map<String, List<Purchase>> bySku = history.stream()
+                .collect(Collectors.groupingBy(p -> p.getProduct().getSku(), LinkedHashMap::new, Collectors.toList()));
+        List<ReorderPrediction> predictions = new ArrayList<>();
+        for (List<Purchase> skuPurchases : bySku.values()) {
+            if (skuPurchases.size() < 2) {
+                continue;
+            }
+            skuPurchases.sort((a, b) -> a.getPurchasedAt().compareTo(b.getPurchasedAt()));
+            List<Long> intervals = new ArrayList<>();
+            for (int i = 1; i < skuPurchases.size(); i++) {
+                intervals.add(Math.max(1, Duration.between(skuPurchases.get(i - 1).getPurchasedAt(),
+                        skuPurchases.get(i).getPurchasedAt()).toDays()));
+            }
+            List<Long> sorted = new ArrayList<>(intervals);
+            Collections.sort(sorted);
+            int size = sorted.size();
+            long median = size % 2 == 1
+                    ? sorted.get(size / 2)
+                    : Math.round((sorted.get(size / 2 - 1) + sorted.get(size / 2)) / 2.0);
+            long min = Collections.min(intervals);
+            long max = Collections.max(intervals);
+            double variability = max == 0 ? 0 : (double) (max - min) / max;
+            double confidence = Math.round((0.4 * Math.min(1.0, size / 4.0)
+                    + 0.6 * (1.0 - Math.min(1.0, variability))) * 100.0) / 100.0;
+            Purchase mostRecent = skuPurchases.get(skuPurchases.size() - 1);
+            Product product = mostRecent.getProduct();
+            predictions.add(new ReorderPrediction(ORG, product.getSku(), product.getName(),
+                    mostRecent.getPurchasedAt(), median, mostRecent.getPurchasedAt().plusDays(median), confidence,
+                    mostRecent.getQuantity(), null));
+        }
+        predictions.sort((a, b) -> {
+            int cmp = a.predictedReorderAt().compareTo(b.predictedReorderAt());
+            return cmp != 0 ? cmp : Double.compare(b.confidence(), a.confidence());
+        });
+        return predictions;
+    }
+
+    // without an audit row the cache never stores anything, so every call recomputes
+    private static ReorderPredictionCache uncached() {
+        PurchaseLoadAuditRepository audits = (PurchaseLoadAuditRepository) Proxy.newProxyInstance(
+                PurchaseLoadAuditRepository.class.getClassLoader(), new Class<?>[]{PurchaseLoadAuditRepository.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("findById")) {
+                        return Optional.empty();
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+        return new ReorderPredictionCache(new PurchaseLoadAuditService(audits, Clock.systemUTC()), 1);
+    }
+
+    // the stub repository needs no transaction around its stream
+    private static final class NoTransactionManager implements PlatformTransactionManager {
+        @Override
+        public TransactionStatus getTransaction(TransactionDefinition definition) {
+            return new SimpleTransactionStatus();
+        }
+
+        @Override
+        public void commit(TransactionStatus status) {
+        }
+
+        @Override
+        public void rollback(TransactionStatus status) {
+        }
+    }
+}
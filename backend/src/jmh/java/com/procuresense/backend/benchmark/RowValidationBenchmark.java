@@ -0,0 +1,79 @@
+package com.procuresense.backend.benchmark;
+
+import com.procuresense.backend.service.ingest.PurchaseCsvSchema;
+import com.procuresense.backend.service.ingest.PurchaseRow;
+import com.procuresense.backend.service.ingest.RowSink;
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVParser;
+import org.apache.commons.csv.CSVRecord;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+// PurchaseCsvSchema.toRow on pre-tokenized records; score is rows/s and
+// -prof gc reports gc.alloc.rate.norm per row
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RowValidationBenchmark {
+
+    private static final int RECORDS = 10_000;
+
+    @Param({"0.0", "0.25"})
+    private double dirtyRatio;
+
+    private PurchaseCsvSchema schema;
+    private List<CSVRecord> records;
+
+    @Setup
+    public void setUp() throws IOException {
+        StringBuilder csv = new StringBuilder(CsvFixtures.HEADER).append('\n');
+        SplittableRandom random = new SplittableRandom(42);
+        for (int i = 0; i < RECORDS; i++) {
+            csv.append(CsvFixtures.line(random, i, dirtyRatio)).append('\n');
+        }
+        try (CSVParser parser = CSVFormat.DEFAULT.builder().setHeader().setSkipHeaderRecord(true).setTrim(true).build()
+                .parse(new StringReader(csv.toString()))) {
+            schema = PurchaseCsvSchema.fromHeaderMap(parser.getHeaderMap());
+            records = parser.getRecords();
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RECORDS)
+    public void toRow(Blackhole blackhole) {
+        RowSink sink = new RowSink() {
+            @Override
+            public void accept(PurchaseRow row) {
+                blackhole.consume(row);
+            }
+
+            @Override
+            public void reject(long recordNumber, String message) {
+                blackhole.consume(message);
+            }
+        };
+        for (int i = 0; i < RECORDS; i++) {
+            schema.toRow(records.get(i), i + 1, sink);
+        }
+    }
+}
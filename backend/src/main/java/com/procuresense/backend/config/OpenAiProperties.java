@@ -3,15 +3,128 @@ package com.procuresense.backend.config;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.util.StringUtils;
 
+import java.time.Duration;
+
 @ConfigurationProperties(prefix = "openai")
 public record OpenAiProperties(boolean enabled,
                                String apiKey,
                                String baseUrl,
                                String model,
                                double temperature,
-                               int maxOutputTokens) {
+                               int maxOutputTokens,
+                               int maxConcurrentRequests,
+                               int batchSize,
+                               Refresh refresh,
+                               Http http,
+                               CircuitBreaker circuitBreaker,
+                               RateLimit rateLimit) {
+
+    private static final int DEFAULT_MAX_CONCURRENT_REQUESTS = 4;
+    private static final int DEFAULT_BATCH_SIZE = 10;
+
+    public OpenAiProperties {
+        if (maxConcurrentRequests <= 0) {
+            maxConcurrentRequests = DEFAULT_MAX_CONCURRENT_REQUESTS;
+        }
+        if (batchSize <= 0) {
+            batchSize = DEFAULT_BATCH_SIZE;
+        }
+        if (refresh == null) {
+            refresh = new Refresh(false, 0, 0);
+        }
+        if (http == null) {
+            http = new Http(null, null, null, 0, null);
+        }
+        if (circuitBreaker == null) {
+            circuitBreaker = new CircuitBreaker(0, 0, 0, null, 0, null);
+        }
+        if (rateLimit == null) {
+            rateLimit = new RateLimit(0, 0, null);
+        }
+    }
 
     public boolean isConfigured() {
         return enabled && StringUtils.hasText(apiKey);
     }
+
+    public record Refresh(boolean background, int workers, int maxPendingKeys) {
+
+        public Refresh {
+            if (workers <= 0) {
+                workers = 2;
+            }
+            if (maxPendingKeys <= 0) {
+                maxPendingKeys = 1000;
+            }
+        }
+    }
+
+    public record Http(Duration connectTimeout,
+                       Duration requestTimeout,
+                       Duration assistantTimeout,
+                       int maxConnections,
+                       Duration keepAlive) {
+
+        public Http {
+            if (connectTimeout == null) {
+                connectTimeout = Duration.ofSeconds(5);
+            }
+            if (requestTimeout == null) {
+                requestTimeout = Duration.ofSeconds(20);
+            }
+            if (assistantTimeout == null) {
+                assistantTimeout = Duration.ofSeconds(60);
+            }
+            if (maxConnections <= 0) {
+                maxConnections = 20;
+            }
+            if (keepAlive == null) {
+                keepAlive = Duration.ofSeconds(30);
+            }
+        }
+    }
+
+    public record CircuitBreaker(int windowSize,
+                                 int minimumCalls,
+                                 double failureRateThreshold,
+                                 Duration slowCallDuration,
+                                 double slowCallRateThreshold,
+                                 Duration openDuration) {
+
+        public CircuitBreaker {
+            if (windowSize <= 0) {
+                windowSize = 20;
+            }
+            if (minimumCalls <= 0) {
+                minimumCalls = Math.min(10, windowSize);
+            }
+            if (failureRateThreshold <= 0 || failureRateThreshold > 1) {
+                failureRateThreshold = 0.5;
+            }
+            if (slowCallDuration == null) {
+                slowCallDuration = Duration.ofSeconds(10);
+            }
+            if (slowCallRateThreshold <= 0 || slowCallRateThreshold > 1) {
+                slowCallRateThreshold = 0.8;
+            }
+            if (openDuration == null) {
+                openDuration = Duration.ofSeconds(30);
+            }
+        }
+    }
+
+    public record RateLimit(int requestsPerMinute, int burst, Duration maxWait) {
+
+        public RateLimit {
+            if (requestsPerMinute <= 0) {
+                requestsPerMinute = 300;
+            }
+            if (burst <= 0) {
+                burst = 10;
+            }
+            if (maxWait == null) {
+                maxWait = Duration.ofSeconds(2);
+            }
+        }
+    }
 }
@@ -0,0 +1,38 @@
+package com.procuresense.backend.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "purchase.import")
+public record PurchaseImportProperties(int chunkSize, int parseParallelism, Async async) {
+
+    private static final int DEFAULT_CHUNK_SIZE = 1000;
+
+    public PurchaseImportProperties {
+        if (chunkSize <= 0) {
+            chunkSize = DEFAULT_CHUNK_SIZE;
+        }
+        if (parseParallelism <= 0) {
+            parseParallelism = 1;
+        }
+        if (async == null) {
+            async = new Async(0, 0, null);
+        }
+    }
+
+    public record Async(int workers, int maxQueuedJobs, Duration jobRetention) {
+
+        public Async {
+            if (workers <= 0) {
+                workers = 2;
+            }
+            if (maxQueuedJobs <= 0) {
+                maxQueuedJobs = 50;
+            }
+            if (jobRetention == null) {
+                jobRetention = Duration.ofHours(1);
+            }
+        }
+    }
+}
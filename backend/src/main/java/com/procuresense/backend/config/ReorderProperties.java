@@ -0,0 +1,62 @@
+package com.procuresense.backend.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+// lookback is null when every purchase counts towards a cadence
+@ConfigurationProperties(prefix = "reorder")
+public record ReorderProperties(Engine engine,
+                                Duration lookback,
+                                int parallelism,
+                                int parallelThreshold,
+                                Precompute precompute,
+                                Cache cache) {
+
+    private static final int DEFAULT_PARALLEL_THRESHOLD = 20_000;
+
+    public ReorderProperties {
+        if (engine == null) {
+            engine = Engine.STATS;
+        }
+        if (lookback != null && (lookback.isZero() || lookback.isNegative())) {
+            lookback = null;
+        }
+        if (parallelism <= 0) {
+            parallelism = 1;
+        }
+        if (parallelThreshold <= 0) {
+            parallelThreshold = DEFAULT_PARALLEL_THRESHOLD;
+        }
+        if (precompute == null) {
+            precompute = new Precompute(false, 0);
+        }
+        if (cache == null) {
+            cache = new Cache(0);
+        }
+    }
+
+    public enum Engine {
+        JAVA,
+        STATS,
+        SQL
+    }
+
+    public record Precompute(boolean enabled, int workers) {
+
+        public Precompute {
+            if (workers <= 0) {
+                workers = 2;
+            }
+        }
+    }
+
+    public record Cache(int maxOrgs) {
+
+        public Cache {
+            if (maxOrgs <= 0) {
+                maxOrgs = 256;
+            }
+        }
+    }
+}
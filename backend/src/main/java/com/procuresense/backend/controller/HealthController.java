@@ -1,5 +1,9 @@
 package com.procuresense.backend.controller;
 
+import com.procuresense.backend.model.OpenAiTransportStats;
+import com.procuresense.backend.service.ai.OpenAiCircuitBreaker;
+import com.procuresense.backend.service.ai.OpenAiHttpTransport;
+import com.procuresense.backend.service.ai.OpenAiTransportMetrics;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -12,6 +16,18 @@ import java.util.Map;
 @RequestMapping("/api/health")
 public class HealthController {
 
+    private final OpenAiTransportMetrics openAiTransportMetrics;
+    private final OpenAiCircuitBreaker openAiCircuitBreaker;
+    private final OpenAiHttpTransport openAiHttpTransport;
+
+    public HealthController(OpenAiTransportMetrics openAiTransportMetrics,
+                            OpenAiCircuitBreaker openAiCircuitBreaker,
+                            OpenAiHttpTransport openAiHttpTransport) {
+        this.openAiTransportMetrics = openAiTransportMetrics;
+        this.openAiCircuitBreaker = openAiCircuitBreaker;
+        this.openAiHttpTransport = openAiHttpTransport;
+    }
+
     @GetMapping
     public ResponseEntity<Map<String, Object>> health() {
         return ResponseEntity.ok(Map.of(
@@ -19,4 +35,10 @@ public class HealthController {
                 "timestamp", OffsetDateTime.now().toString()
         ));
     }
+
+    @GetMapping("/openai")
+    public ResponseEntity<OpenAiTransportStats> openAi() {
+        return ResponseEntity.ok(openAiTransportMetrics.snapshot(openAiCircuitBreaker.state().name(),
+                openAiHttpTransport.poolStats()));
+    }
 }
@@ -2,16 +2,22 @@ package com.procuresense.backend.controller;
 
 import com.procuresense.backend.model.BundleRecommendation;
 import com.procuresense.backend.model.DemoLoadResponse;
+import com.procuresense.backend.model.PurchaseImportJobResponse;
 import com.procuresense.backend.model.PurchaseImportResponse;
 import com.procuresense.backend.model.PurchaseSummary;
+import com.procuresense.backend.model.ReorderPage;
 import com.procuresense.backend.model.ReorderPrediction;
 import com.procuresense.backend.service.BundleRecommendationService;
 import com.procuresense.backend.service.DemoDataService;
+import com.procuresense.backend.service.ImportProgressListener;
+import com.procuresense.backend.service.PurchaseImportJobService;
 import com.procuresense.backend.service.PurchaseImportService;
 import com.procuresense.backend.service.ReorderExplanationService;
 import com.procuresense.backend.service.ReorderInsightService;
 import jakarta.validation.constraints.NotBlank;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
+import org.springframework.util.StringUtils;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
@@ -22,25 +28,32 @@ import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.bind.annotation.RequestPart;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.InputStream;
+import java.net.URI;
 import java.util.List;
 
 @RestController
 @RequestMapping("/api/purchases")
 public class PurchaseController {
 
+    private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
     private final DemoDataService demoDataService;
     private final PurchaseImportService purchaseImportService;
+    private final PurchaseImportJobService purchaseImportJobService;
     private final ReorderInsightService reorderInsightService;
     private final BundleRecommendationService bundleRecommendationService;
     private final ReorderExplanationService reorderExplanationService;
 
     public PurchaseController(DemoDataService demoDataService,
                               PurchaseImportService purchaseImportService,
+                              PurchaseImportJobService purchaseImportJobService,
                               ReorderInsightService reorderInsightService,
                               BundleRecommendationService bundleRecommendationService,
                               ReorderExplanationService reorderExplanationService) {
         this.demoDataService = demoDataService;
         this.purchaseImportService = purchaseImportService;
+        this.purchaseImportJobService = purchaseImportJobService;
         this.reorderInsightService = reorderInsightService;
         this.bundleRecommendationService = bundleRecommendationService;
         this.reorderExplanationService = reorderExplanationService;
@@ -54,6 +67,40 @@ public class PurchaseController {
         return ResponseEntity.ok(purchaseImportService.importCsv(file, orgId));
     }
 
+    @PostMapping(value = "/upload/stream", consumes = {"text/csv", "application/gzip", "application/x-gzip",
+            "application/zstd", "application/octet-stream"})
+    public ResponseEntity<PurchaseImportResponse> streamPurchases(
+            InputStream body,
+            @RequestHeader(value = HttpHeaders.CONTENT_TYPE, required = false) String contentType,
+            @RequestHeader(value = HttpHeaders.CONTENT_ENCODING, required = false) String contentEncoding,
+            @RequestHeader("X-Org-Id") @NotBlank String orgId,
+            @RequestHeader("X-Role") @NotBlank String role) {
+        String compressionHint = StringUtils.hasText(contentEncoding) ? contentEncoding : contentType;
+        return ResponseEntity.ok(purchaseImportService.importCsv(body, compressionHint, orgId, null,
+                ImportProgressListener.NONE));
+    }
+
+    @PostMapping("/imports")
+    public ResponseEntity<PurchaseImportJobResponse> submitImport(
+            @RequestPart("file") MultipartFile file,
+            @RequestHeader("X-Org-Id") @NotBlank String orgId,
+            @RequestHeader("X-Role") @NotBlank String role) {
+        PurchaseImportJobResponse job = purchaseImportJobService.submit(file, orgId);
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/purchases/imports/" + job.jobId()))
+                .body(job);
+    }
+
+    @GetMapping("/imports/{jobId}")
+    public ResponseEntity<PurchaseImportJobResponse> importStatus(
+            @RequestHeader("X-Org-Id") @NotBlank String orgId,
+            @RequestHeader("X-Role") @NotBlank String role,
+            @PathVariable("jobId") String jobId) {
+        return purchaseImportJobService.findJob(jobId, orgId)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
     @PostMapping("/demo/load")
     public ResponseEntity<DemoLoadResponse> loadDemoData(
             @RequestHeader("X-Org-Id") @NotBlank String orgId,
@@ -73,13 +120,16 @@ public class PurchaseController {
             @RequestHeader("X-Org-Id") @NotBlank String orgId,
             @RequestHeader("X-Role") @NotBlank String role,
             @RequestParam(name = "limit", defaultValue = "20") int limit,
+            @RequestParam(name = "cursor", required = false) String cursor,
+            @RequestParam(name = "lookbackDays", required = false) Integer lookbackDays,
             @RequestHeader(value = "X-Use-Cached-AI", defaultValue = "false") boolean useCachedAi) {
-        List<ReorderPrediction> predictions = reorderInsightService.computePredictions(orgId);
-        if (limit > 0 && predictions.size() > limit) {
-            predictions = predictions.subList(0, limit);
+        ReorderPage page = reorderInsightService.findPredictions(orgId, limit, cursor, lookbackDays);
+        List<ReorderPrediction> enriched = reorderExplanationService.enrich(page.predictions(), useCachedAi);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.nextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, page.nextCursor());
         }
-        List<ReorderPrediction> enriched = reorderExplanationService.enrich(predictions, useCachedAi);
-        return ResponseEntity.ok(enriched);
+        return response.body(enriched);
     }
 
     @GetMapping("/insights/bundles/{sku}")
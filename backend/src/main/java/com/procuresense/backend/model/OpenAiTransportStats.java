@@ -0,0 +1,26 @@
+package com.procuresense.backend.model;
+
+import java.util.Map;
+
+public record OpenAiTransportStats(String circuitState,
+                                   long requests,
+                                   Connections connections,
+                                   Map<String, OperationStats> operations) {
+
+    // openedPerRequest near zero means calls reuse pooled connections instead of opening new ones
+    public record Connections(int leased,
+                              int available,
+                              int pending,
+                              int max,
+                              long opened,
+                              double openedPerRequest) {
+    }
+
+    public record OperationStats(long requests,
+                                 long failures,
+                                 long timeouts,
+                                 long rejected,
+                                 double meanLatencyMs,
+                                 long maxLatencyMs) {
+    }
+}
@@ -0,0 +1,7 @@
+package com.procuresense.backend.model;
+
+import java.util.Map;
+
+// product ids by SKU, and whether the upsert changed the name of a product that already existed
+public record ProductUpsert(Map<String, Long> ids, boolean renamed) {
+}
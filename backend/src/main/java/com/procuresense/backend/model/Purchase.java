@@ -6,7 +6,9 @@ import java.math.BigDecimal;
 import java.time.OffsetDateTime;
 
 @Entity
-@Table(name = "purchases")
+@Table(name = "purchases",
+        uniqueConstraints = @UniqueConstraint(name = "uq_purchases_natural_key",
+                columnNames = {"org_id", "order_id", "product_id", "purchased_at"}))
 public class Purchase {
 
     @Id
@@ -0,0 +1,10 @@
+package com.procuresense.backend.model;
+
+import java.time.OffsetDateTime;
+
+public record PurchaseHistoryRow(String sku,
+                                 String productName,
+                                 String orderId,
+                                 int quantity,
+                                 OffsetDateTime purchasedAt) {
+}
@@ -0,0 +1,63 @@
+package com.procuresense.backend.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+
+import java.time.OffsetDateTime;
+
+@Entity
+@Table(name = "purchase_import_files",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"org_id", "content_sha256"}))
+public class PurchaseImportFile {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "org_id", nullable = false, length = 100)
+    private String orgId;
+
+    @Column(name = "content_sha256", nullable = false, length = 64)
+    private String contentSha256;
+
+    @Column(name = "imported_rows", nullable = false)
+    private int importedRows;
+
+    @Column(name = "imported_at", nullable = false)
+    private OffsetDateTime importedAt;
+
+    public PurchaseImportFile() {
+    }
+
+    public PurchaseImportFile(String orgId, String contentSha256, int importedRows, OffsetDateTime importedAt) {
+        this.orgId = orgId;
+        this.contentSha256 = contentSha256;
+        this.importedRows = importedRows;
+        this.importedAt = importedAt;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getOrgId() {
+        return orgId;
+    }
+
+    public String getContentSha256() {
+        return contentSha256;
+    }
+
+    public int getImportedRows() {
+        return importedRows;
+    }
+
+    public OffsetDateTime getImportedAt() {
+        return importedAt;
+    }
+}
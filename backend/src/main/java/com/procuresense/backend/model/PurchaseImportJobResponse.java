@@ -0,0 +1,27 @@
+package com.procuresense.backend.model;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+
+public record PurchaseImportJobResponse(String jobId,
+                                        String orgId,
+                                        Status status,
+                                        int rowsProcessed,
+                                        int importedRows,
+                                        int rejectedRows,
+                                        int duplicateRows,
+                                        boolean fileAlreadyImported,
+                                        double rowsPerSecond,
+                                        List<String> sampleErrors,
+                                        OffsetDateTime submittedAt,
+                                        OffsetDateTime startedAt,
+                                        OffsetDateTime finishedAt,
+                                        String error) {
+
+    public enum Status {
+        QUEUED,
+        RUNNING,
+        COMPLETED,
+        FAILED
+    }
+}
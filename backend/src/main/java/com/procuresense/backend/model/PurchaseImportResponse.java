@@ -4,5 +4,7 @@ import java.util.List;
 
 public record PurchaseImportResponse(int importedRows,
                                      int rejectedRows,
+                                     int duplicateRows,
+                                     boolean fileAlreadyImported,
                                      List<String> sampleErrors) {
 }
@@ -0,0 +1,6 @@
+package com.procuresense.backend.model;
+
+import java.util.List;
+
+public record ReorderPage(List<ReorderPrediction> predictions, String nextCursor) {
+}
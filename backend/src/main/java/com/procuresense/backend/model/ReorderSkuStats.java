@@ -0,0 +1,147 @@
+package com.procuresense.backend.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+
+import java.time.OffsetDateTime;
+
+@Entity
+@Table(name = "reorder_sku_stats",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"org_id", "sku"}))
+public class ReorderSkuStats {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "org_id", nullable = false, length = 100)
+    private String orgId;
+
+    @Column(name = "sku", nullable = false)
+    private String sku;
+
+    @Column(name = "purchase_count", nullable = false)
+    private int purchaseCount;
+
+    @Column(name = "last_purchase_at", nullable = false)
+    private OffsetDateTime lastPurchaseAt;
+
+    @Column(name = "last_quantity", nullable = false)
+    private int lastQuantity;
+
+    @Column(name = "min_interval_days")
+    private Long minIntervalDays;
+
+    @Column(name = "max_interval_days")
+    private Long maxIntervalDays;
+
+    @Column(name = "median_days_between")
+    private Long medianDaysBetween;
+
+    @Column(name = "confidence")
+    private Double confidence;
+
+    @Column(name = "predicted_reorder_at")
+    private OffsetDateTime predictedReorderAt;
+
+    // "days:count" pairs of whole-day purchase intervals in ascending days; the median and spread derive from it
+    @Column(name = "interval_histogram", nullable = false, columnDefinition = "text")
+    private String intervalHistogram;
+
+    public ReorderSkuStats() {
+    }
+
+    public ReorderSkuStats(String orgId, String sku) {
+        this.orgId = orgId;
+        this.sku = sku;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getOrgId() {
+        return orgId;
+    }
+
+    public String getSku() {
+        return sku;
+    }
+
+    public int getPurchaseCount() {
+        return purchaseCount;
+    }
+
+    public void setPurchaseCount(int purchaseCount) {
+        this.purchaseCount = purchaseCount;
+    }
+
+    public OffsetDateTime getLastPurchaseAt() {
+        return lastPurchaseAt;
+    }
+
+    public void setLastPurchaseAt(OffsetDateTime lastPurchaseAt) {
+        this.lastPurchaseAt = lastPurchaseAt;
+    }
+
+    public int getLastQuantity() {
+        return lastQuantity;
+    }
+
+    public void setLastQuantity(int lastQuantity) {
+        this.lastQuantity = lastQuantity;
+    }
+
+    public Long getMinIntervalDays() {
+        return minIntervalDays;
+    }
+
+    public void setMinIntervalDays(Long minIntervalDays) {
+        this.minIntervalDays = minIntervalDays;
+    }
+
+    public Long getMaxIntervalDays() {
+        return maxIntervalDays;
+    }
+
+    public void setMaxIntervalDays(Long maxIntervalDays) {
+        this.maxIntervalDays = maxIntervalDays;
+    }
+
+    public Long getMedianDaysBetween() {
+        return medianDaysBetween;
+    }
+
+    public void setMedianDaysBetween(Long medianDaysBetween) {
+        this.medianDaysBetween = medianDaysBetween;
+    }
+
+    public Double getConfidence() {
+        return confidence;
+    }
+
+    public void setConfidence(Double confidence) {
+        this.confidence = confidence;
+    }
+
+    public OffsetDateTime getPredictedReorderAt() {
+        return predictedReorderAt;
+    }
+
+    public void setPredictedReorderAt(OffsetDateTime predictedReorderAt) {
+        this.predictedReorderAt = predictedReorderAt;
+    }
+
+    public String getIntervalHistogram() {
+        return intervalHistogram;
+    }
+
+    public void setIntervalHistogram(String intervalHistogram) {
+        this.intervalHistogram = intervalHistogram;
+    }
+}
@@ -0,0 +1,41 @@
+package com.procuresense.backend.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+import java.time.OffsetDateTime;
+
+@Entity
+@Table(name = "reorder_stats_state")
+public class ReorderStatsState {
+
+    @Id
+    @Column(name = "org_id", nullable = false, length = 100)
+    private String orgId;
+
+    // when the org's rows were last built or merged by an import; null while pending their first build
+    @Column(name = "built_at")
+    private OffsetDateTime builtAt;
+
+    public ReorderStatsState() {
+    }
+
+    public ReorderStatsState(String orgId, OffsetDateTime builtAt) {
+        this.orgId = orgId;
+        this.builtAt = builtAt;
+    }
+
+    public String getOrgId() {
+        return orgId;
+    }
+
+    public OffsetDateTime getBuiltAt() {
+        return builtAt;
+    }
+
+    public void setBuiltAt(OffsetDateTime builtAt) {
+        this.builtAt = builtAt;
+    }
+}
@@ -0,0 +1,13 @@
+package com.procuresense.backend.model;
+
+import java.time.OffsetDateTime;
+
+public record SkuCadence(String sku,
+                         String productName,
+                         OffsetDateTime lastPurchaseAt,
+                         int lastQuantity,
+                         int intervalCount,
+                         long minIntervalDays,
+                         long maxIntervalDays,
+                         double medianIntervalDays) {
+}
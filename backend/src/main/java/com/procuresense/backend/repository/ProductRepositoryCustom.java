@@ -0,0 +1,11 @@
+package com.procuresense.backend.repository;
+
+import com.procuresense.backend.model.Product;
+import com.procuresense.backend.model.ProductUpsert;
+
+import java.util.Collection;
+
+public interface ProductRepositoryCustom {
+
+    ProductUpsert upsertAllBySku(Collection<Product> products);
+}
@@ -0,0 +1,137 @@
+package com.procuresense.backend.repository;
+
+import com.procuresense.backend.config.DatabasePlatform;
+import com.procuresense.backend.model.Product;
+import com.procuresense.backend.model.ProductUpsert;
+import jakarta.persistence.EntityManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class ProductRepositoryImpl implements ProductRepositoryCustom {
+
+    private static final String UPSERT_BY_SKU = """
+            with input as (
+                select * from unnest(?::varchar[], ?::varchar[], ?::varchar[], ?::numeric[])
+                    as t(sku, name, category, unit_price)
+            ), upserted as (
+                insert into products (sku, name, category, unit_price)
+                select sku, name, category, unit_price from input
+                on conflict (sku) do update
+                    set name = excluded.name,
+                        category = excluded.category,
+                        unit_price = excluded.unit_price
+                    where (products.name, products.category, products.unit_price)
+                          is distinct from (excluded.name, excluded.category, excluded.unit_price)
+                returning id, sku
+            )
+            select id, sku, false as renamed from upserted
+            union all
+            select p.id, p.sku, p.name is distinct from i.name from products p join input i on i.sku = p.sku""";
+
+    private static final String SELECT_BY_SKU = "select id, sku from products where sku = any(?)";
+
+    private final EntityManager entityManager;
+    private final JdbcTemplate jdbcTemplate;
+    private final DatabasePlatform databasePlatform;
+
+    public ProductRepositoryImpl(EntityManager entityManager,
+                                 JdbcTemplate jdbcTemplate,
+                                 DatabasePlatform databasePlatform) {
+        this.entityManager = entityManager;
+        this.jdbcTemplate = jdbcTemplate;
+        this.databasePlatform = databasePlatform;
+    }
+
+    @Override
+    @Transactional
+    public ProductUpsert upsertAllBySku(Collection<Product> products) {
+        if (products.isEmpty()) {
+            return new ProductUpsert(Map.of(), false);
+        }
+        if (databasePlatform.isPostgres()) {
+            return upsertWithOnConflict(products);
+        }
+        return upsertWithEntityManager(products);
+    }
+
+    // the join reads the statement's snapshot, so it still sees the names the upsert replaces
+    private ProductUpsert upsertWithOnConflict(Collection<Product> products) {
+        Map<String, Long> ids = new HashMap<>();
+        AtomicBoolean renamed = new AtomicBoolean();
+        jdbcTemplate.query(connection -> {
+            var statement = connection.prepareStatement(UPSERT_BY_SKU);
+            statement.setArray(1, varcharArray(connection, products.stream().map(Product::getSku).toList()));
+            statement.setArray(2, varcharArray(connection, products.stream().map(Product::getName).toList()));
+            statement.setArray(3, varcharArray(connection, products.stream().map(Product::getCategory).toList()));
+            statement.setArray(4, connection.createArrayOf("numeric",
+                    products.stream().map(Product::getUnitPrice).toArray(BigDecimal[]::new)));
+            return statement;
+        }, rs -> {
+            ids.putIfAbsent(rs.getString("sku"), rs.getLong("id"));
+            if (rs.getBoolean("renamed")) {
+                renamed.set(true);
+            }
+        });
+        // a SKU inserted by a concurrent import conflicts without being returned and is newer than the
+        // statement's snapshot, so the join misses it too; a fresh statement sees the committed row
+        List<String> missing = products.stream().map(Product::getSku).filter(sku -> !ids.containsKey(sku)).toList();
+        if (!missing.isEmpty()) {
+            jdbcTemplate.query(connection -> {
+                var statement = connection.prepareStatement(SELECT_BY_SKU);
+                statement.setArray(1, varcharArray(connection, missing));
+                return statement;
+            }, rs -> {
+                ids.put(rs.getString("sku"), rs.getLong("id"));
+            });
+        }
+        return new ProductUpsert(ids, renamed.get());
+    }
+
+    private Array varcharArray(Connection connection, List<String> values) throws SQLException {
+        return connection.createArrayOf("varchar", values.toArray(String[]::new));
+    }
+
+    private ProductUpsert upsertWithEntityManager(Collection<Product> products) {
+        Map<String, Product> existing = new HashMap<>();
+        entityManager.createQuery("select p from Product p where p.sku in :skus", Product.class)
+                .setParameter("skus", products.stream().map(Product::getSku).toList())
+                .getResultList()
+                .forEach(product -> existing.put(product.getSku(), product));
+
+        Map<String, Long> ids = new HashMap<>();
+        boolean renamed = false;
+        for (Product incoming : products) {
+            Product current = existing.get(incoming.getSku());
+            if (current == null) {
+                entityManager.persist(incoming);
+                current = incoming;
+            } else if (differs(current, incoming)) {
+                renamed |= !Objects.equals(current.getName(), incoming.getName());
+                current.setName(incoming.getName());
+                current.setCategory(incoming.getCategory());
+                current.setUnitPrice(incoming.getUnitPrice());
+            }
+            ids.put(current.getSku(), current.getId());
+        }
+        return new ProductUpsert(ids, renamed);
+    }
+
+    private boolean differs(Product current, Product incoming) {
+        return !Objects.equals(current.getName(), incoming.getName())
+                || !Objects.equals(current.getCategory(), incoming.getCategory())
+                || current.getUnitPrice() == null
+                || incoming.getUnitPrice() == null
+                || current.getUnitPrice().compareTo(incoming.getUnitPrice()) != 0;
+    }
+}
@@ -0,0 +1,16 @@
+package com.procuresense.backend.repository;
+
+import com.procuresense.backend.model.PurchaseImportFile;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+public interface PurchaseImportFileRepository extends JpaRepository<PurchaseImportFile, Long> {
+
+    boolean existsByOrgIdAndContentSha256(String orgId, String contentSha256);
+
+    @Modifying
+    @Query("delete from PurchaseImportFile f where f.orgId = :orgId")
+    void deleteByOrgId(@Param("orgId") String orgId);
+}
@@ -1,16 +1,22 @@
 package com.procuresense.backend.repository;
 
 import com.procuresense.backend.model.Purchase;
-import org.springframework.data.jpa.repository.EntityGraph;
+import com.procuresense.backend.model.PurchaseHistoryRow;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
 import java.math.BigDecimal;
 import java.time.OffsetDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
 
-public interface PurchaseRepository extends JpaRepository<Purchase, Long> {
+public interface PurchaseRepository extends JpaRepository<Purchase, Long>, PurchaseRepositoryCustom {
 
     @Query("select coalesce(count(distinct p.orderId), 0) from Purchase p where p.orgId = :orgId")
     long countDistinctOrdersByOrg(@Param("orgId") String orgId);
@@ -36,6 +42,62 @@ public interface PurchaseRepository extends JpaRepository<Purchase, Long> {
     @Query("select max(p.purchasedAt) from Purchase p where p.orgId = :orgId")
     OffsetDateTime findLastPurchaseDate(@Param("orgId") String orgId);
 
-    @EntityGraph(attributePaths = "product")
-    java.util.List<Purchase> findByOrgIdOrderByProductSkuAscPurchasedAtAsc(String orgId);
+    @Query("""
+            select p.orderId, p.product.id, p.purchasedAt from Purchase p
+            where p.orgId = :orgId and p.orderId in :orderIds""")
+    List<Object[]> findNaturalKeys(@Param("orgId") String orgId, @Param("orderIds") Collection<String> orderIds);
+
+    // rows arrive grouped by SKU in purchase order; callers must consume the stream inside a transaction
+    // so PostgreSQL can serve it from a server-side cursor instead of buffering the whole result
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("""
+            select new com.procuresense.backend.model.PurchaseHistoryRow(
+                p.product.sku, p.product.name, p.orderId, p.quantity, p.purchasedAt)
+            from Purchase p
+            where p.orgId = :orgId
+            order by p.product.sku, p.purchasedAt, p.id""")
+    Stream<PurchaseHistoryRow> streamPurchaseHistory(@Param("orgId") String orgId);
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("""
+            select new com.procuresense.backend.model.PurchaseHistoryRow(
+                p.product.sku, p.product.name, p.orderId, p.quantity, p.purchasedAt)
+            from Purchase p
+            where p.orgId = :orgId and p.product.sku in :skus
+            order by p.product.sku, p.purchasedAt, p.id""")
+    Stream<PurchaseHistoryRow> streamPurchaseHistory(@Param("orgId") String orgId,
+                                                     @Param("skus") Collection<String> skus);
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("""
+            select new com.procuresense.backend.model.PurchaseHistoryRow(
+                p.product.sku, p.product.name, p.orderId, p.quantity, p.purchasedAt)
+            from Purchase p
+            where p.orgId = :orgId and p.orderId in (
+                select o.orderId from Purchase o
+                where o.orgId = :orgId and lower(o.product.sku) = lower(:sku))
+            order by p.product.sku, p.purchasedAt, p.id""")
+    Stream<PurchaseHistoryRow> streamOrdersContainingSku(@Param("orgId") String orgId, @Param("sku") String sku);
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("""
+            select new com.procuresense.backend.model.PurchaseHistoryRow(
+                p.product.sku, p.product.name, p.orderId, p.quantity, p.purchasedAt)
+            from Purchase p
+            where p.orgId = :orgId and p.purchasedAt >= :since
+            order by p.product.sku, p.purchasedAt, p.id""")
+    Stream<PurchaseHistoryRow> streamPurchaseHistorySince(@Param("orgId") String orgId,
+                                                          @Param("since") OffsetDateTime since);
 }
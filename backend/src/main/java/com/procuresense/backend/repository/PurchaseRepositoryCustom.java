@@ -0,0 +1,11 @@
+package com.procuresense.backend.repository;
+
+import com.procuresense.backend.model.SkuCadence;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+
+public interface PurchaseRepositoryCustom {
+
+    List<SkuCadence> findSkuCadences(String orgId, OffsetDateTime since);
+}
@@ -0,0 +1,67 @@
+package com.procuresense.backend.repository;
+
+import com.procuresense.backend.model.SkuCadence;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+
+public class PurchaseRepositoryImpl implements PurchaseRepositoryCustom {
+
+    // intervals are whole days truncated towards zero with a floor of one day, like Duration.toDays;
+    // nested derived tables rather than a CTE because H2 mistypes bind parameters inside WITH clauses
+    private static final String SKU_CADENCES = """
+            select pr.sku, pr.name, c.last_purchased_at, c.last_quantity,
+                   c.interval_count, c.min_days, c.max_days, c.median_days
+            from (
+                select product_id,
+                       max(last_purchased_at) as last_purchased_at,
+                       max(last_quantity) as last_quantity,
+                       count(*) as interval_count,
+                       min(days) as min_days,
+                       max(days) as max_days,
+                       percentile_cont(0.5) within group (order by days) as median_days
+                from (
+                    select product_id, last_purchased_at, last_quantity,
+                           greatest(1, floor((extract(epoch from purchased_at) - extract(epoch from previous_at)) / 86400))
+                               as days
+                    from (
+                        select p.product_id, p.purchased_at,
+                               lag(p.purchased_at) over (partition by p.product_id order by p.purchased_at, p.id)
+                                   as previous_at,
+                               first_value(p.purchased_at) over (partition by p.product_id
+                                   order by p.purchased_at desc, p.id desc) as last_purchased_at,
+                               first_value(p.quantity) over (partition by p.product_id
+                                   order by p.purchased_at desc, p.id desc) as last_quantity
+                        from purchases p
+                        where p.org_id = ?%s
+                    ) ordered
+                    where previous_at is not null
+                ) intervals
+                group by product_id
+            ) c
+            join products pr on pr.id = c.product_id
+            order by pr.sku""";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public PurchaseRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public List<SkuCadence> findSkuCadences(String orgId, OffsetDateTime since) {
+        String sql = SKU_CADENCES.formatted(since == null ? "" : " and p.purchased_at >= ?");
+        Object[] args = since == null ? new Object[]{orgId} : new Object[]{orgId, since};
+        return jdbcTemplate.query(sql, (rs, rowNum) -> new SkuCadence(
+                rs.getString(1),
+                rs.getString(2),
+                rs.getObject(3, OffsetDateTime.class).withOffsetSameInstant(ZoneOffset.UTC),
+                rs.getInt(4),
+                rs.getInt(5),
+                rs.getLong(6),
+                rs.getLong(7),
+                rs.getDouble(8)), args);
+    }
+}
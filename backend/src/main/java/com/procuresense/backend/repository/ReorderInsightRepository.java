@@ -3,9 +3,10 @@ package com.procuresense.backend.repository;
 import com.procuresense.backend.model.ReorderInsight;
 import org.springframework.data.jpa.repository.JpaRepository;
 
-import java.util.Optional;
+import java.util.Collection;
+import java.util.List;
 
-public interface ReorderInsightRepository extends JpaRepository<ReorderInsight, Long> {
+public interface ReorderInsightRepository extends JpaRepository<ReorderInsight, Long>, ReorderInsightRepositoryCustom {
 
-    Optional<ReorderInsight> findByOrgIdAndSku(String orgId, String sku);
+    List<ReorderInsight> findByOrgIdAndSkuIn(String orgId, Collection<String> skus);
 }
@@ -0,0 +1,11 @@
+package com.procuresense.backend.repository;
+
+import com.procuresense.backend.model.ReorderInsight;
+
+import java.util.Collection;
+
+public interface ReorderInsightRepositoryCustom {
+
+    // inserts or replaces each insight by (org_id, sku); callers must not pass the same key twice
+    void upsertAll(Collection<ReorderInsight> insights);
+}
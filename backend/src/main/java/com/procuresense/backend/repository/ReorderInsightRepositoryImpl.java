@@ -0,0 +1,125 @@
+package com.procuresense.backend.repository;
+
+import com.procuresense.backend.config.DatabasePlatform;
+import com.procuresense.backend.model.ReorderInsight;
+import jakarta.persistence.EntityManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.OffsetDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+public class ReorderInsightRepositoryImpl implements ReorderInsightRepositoryCustom {
+
+    private static final String UPSERT_BY_ORG_AND_SKU = """
+            insert into reorder_insights (org_id, sku, last_purchase_at, predicted_reorder_at,
+                                          median_days_between, confidence, explanation_text, fingerprint, updated_at)
+            select org_id, sku, last_purchase_at, predicted_reorder_at,
+                   median_days_between, confidence, explanation_text, fingerprint, now()
+            from unnest(?::varchar[], ?::varchar[], ?::timestamptz[], ?::timestamptz[], ?::bigint[], ?::float8[],
+                        ?::text[], ?::varchar[])
+                as t(org_id, sku, last_purchase_at, predicted_reorder_at, median_days_between, confidence,
+                     explanation_text, fingerprint)
+            on conflict (org_id, sku) do update
+                set last_purchase_at = excluded.last_purchase_at,
+                    predicted_reorder_at = excluded.predicted_reorder_at,
+                    median_days_between = excluded.median_days_between,
+                    confidence = excluded.confidence,
+                    explanation_text = excluded.explanation_text,
+                    fingerprint = excluded.fingerprint,
+                    updated_at = excluded.updated_at""";
+
+    private final EntityManager entityManager;
+    private final JdbcTemplate jdbcTemplate;
+    private final DatabasePlatform databasePlatform;
+
+    public ReorderInsightRepositoryImpl(EntityManager entityManager,
+                                        JdbcTemplate jdbcTemplate,
+                                        DatabasePlatform databasePlatform) {
+        this.entityManager = entityManager;
+        this.jdbcTemplate = jdbcTemplate;
+        this.databasePlatform = databasePlatform;
+    }
+
+    @Override
+    @Transactional
+    public void upsertAll(Collection<ReorderInsight> insights) {
+        if (insights.isEmpty()) {
+            return;
+        }
+        if (databasePlatform.isPostgres()) {
+            upsertWithOnConflict(insights);
+        } else {
+            upsertWithEntityManager(insights);
+        }
+    }
+
+    private void upsertWithOnConflict(Collection<ReorderInsight> insights) {
+        List<ReorderInsight> rows = List.copyOf(insights);
+        jdbcTemplate.update(connection -> {
+            var statement = connection.prepareStatement(UPSERT_BY_ORG_AND_SKU);
+            statement.setArray(1, varcharArray(connection, rows, ReorderInsight::getOrgId));
+            statement.setArray(2, varcharArray(connection, rows, ReorderInsight::getSku));
+            statement.setArray(3, timestamptzArray(connection, rows, ReorderInsight::getLastPurchaseAt));
+            statement.setArray(4, timestamptzArray(connection, rows, ReorderInsight::getPredictedReorderAt));
+            statement.setArray(5, connection.createArrayOf("bigint",
+                    rows.stream().map(ReorderInsight::getMedianDaysBetween).toArray(Long[]::new)));
+            statement.setArray(6, connection.createArrayOf("float8",
+                    rows.stream().map(ReorderInsight::getConfidence).toArray(Double[]::new)));
+            statement.setArray(7, connection.createArrayOf("text",
+                    rows.stream().map(ReorderInsight::getExplanationText).toArray(String[]::new)));
+            statement.setArray(8, varcharArray(connection, rows, ReorderInsight::getFingerprint));
+            return statement;
+        });
+    }
+
+    private Array varcharArray(Connection connection, List<ReorderInsight> rows,
+                               Function<ReorderInsight, String> column) throws SQLException {
+        return connection.createArrayOf("varchar", rows.stream().map(column).toArray(String[]::new));
+    }
+
+    private Array timestamptzArray(Connection connection, List<ReorderInsight> rows,
+                                   Function<ReorderInsight, OffsetDateTime> column) throws SQLException {
+        return connection.createArrayOf("timestamptz", rows.stream().map(column).toArray(OffsetDateTime[]::new));
+    }
+
+    private void upsertWithEntityManager(Collection<ReorderInsight> insights) {
+        Map<String, ReorderInsight> existing = new HashMap<>();
+        for (String orgId : insights.stream().map(ReorderInsight::getOrgId).distinct().toList()) {
+            entityManager.createQuery("""
+                            select i from ReorderInsight i where i.orgId = :orgId and i.sku in :skus""",
+                            ReorderInsight.class)
+                    .setParameter("orgId", orgId)
+                    .setParameter("skus", insights.stream()
+                            .filter(insight -> orgId.equals(insight.getOrgId()))
+                            .map(ReorderInsight::getSku)
+                            .toList())
+                    .getResultList()
+                    .forEach(insight -> existing.put(key(insight), insight));
+        }
+        for (ReorderInsight incoming : insights) {
+            ReorderInsight current = existing.get(key(incoming));
+            if (current == null) {
+                entityManager.persist(incoming);
+                continue;
+            }
+            current.setLastPurchaseAt(incoming.getLastPurchaseAt());
+            current.setPredictedReorderAt(incoming.getPredictedReorderAt());
+            current.setMedianDaysBetween(incoming.getMedianDaysBetween());
+            current.setConfidence(incoming.getConfidence());
+            current.setExplanationText(incoming.getExplanationText());
+            current.setFingerprint(incoming.getFingerprint());
+        }
+    }
+
+    private static String key(ReorderInsight insight) {
+        return insight.getOrgId() + "|" + insight.getSku();
+    }
+}
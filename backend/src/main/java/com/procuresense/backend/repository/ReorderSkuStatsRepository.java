@@ -0,0 +1,46 @@
+package com.procuresense.backend.repository;
+
+import com.procuresense.backend.model.ReorderPrediction;
+import com.procuresense.backend.model.ReorderSkuStats;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.OffsetDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface ReorderSkuStatsRepository extends JpaRepository<ReorderSkuStats, Long> {
+
+    List<ReorderSkuStats> findByOrgIdAndSkuIn(String orgId, Collection<String> skus);
+
+    // product names are shared across orgs and may be renamed by any import, so they are joined at read time
+    @Query("""
+            select new com.procuresense.backend.model.ReorderPrediction(s.orgId, s.sku, p.name, s.lastPurchaseAt,
+                s.medianDaysBetween, s.predictedReorderAt, s.confidence, s.lastQuantity, cast(null as String))
+            from ReorderSkuStats s, Product p
+            where p.sku = s.sku and s.orgId = :orgId and s.purchaseCount >= 2
+            order by s.predictedReorderAt, s.confidence desc, s.sku""")
+    List<ReorderPrediction> findPredictions(@Param("orgId") String orgId, Limit limit);
+
+    @Query("""
+            select new com.procuresense.backend.model.ReorderPrediction(s.orgId, s.sku, p.name, s.lastPurchaseAt,
+                s.medianDaysBetween, s.predictedReorderAt, s.confidence, s.lastQuantity, cast(null as String))
+            from ReorderSkuStats s, Product p
+            where p.sku = s.sku and s.orgId = :orgId and s.purchaseCount >= 2
+              and (s.predictedReorderAt > :predictedReorderAt
+                   or (s.predictedReorderAt = :predictedReorderAt
+                       and (s.confidence < :confidence or (s.confidence = :confidence and s.sku > :sku))))
+            order by s.predictedReorderAt, s.confidence desc, s.sku""")
+    List<ReorderPrediction> findPredictionsAfter(@Param("orgId") String orgId,
+                                                 @Param("predictedReorderAt") OffsetDateTime predictedReorderAt,
+                                                 @Param("confidence") double confidence,
+                                                 @Param("sku") String sku,
+                                                 Limit limit);
+
+    @Modifying
+    @Query("delete from ReorderSkuStats s where s.orgId = :orgId")
+    void deleteByOrgId(@Param("orgId") String orgId);
+}
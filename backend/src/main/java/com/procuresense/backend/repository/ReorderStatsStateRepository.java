@@ -0,0 +1,35 @@
+package com.procuresense.backend.repository;
+
+import com.procuresense.backend.model.ReorderStatsState;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface ReorderStatsStateRepository extends JpaRepository<ReorderStatsState, String> {
+
+    @Query("""
+            select a.orgId from PurchaseLoadAudit a
+            where not exists (
+                select s.orgId from ReorderStatsState s
+                where s.orgId = a.orgId and s.builtAt is not null)
+            order by a.orgId""")
+    List<String> findStaleOrgIds();
+
+    boolean existsByOrgIdAndBuiltAtIsNotNull(String orgId);
+
+    // a pending row for an org whose statistics were never built; waits for a concurrent insert of the same org
+    @Modifying
+    @Query(value = "insert into reorder_stats_state (org_id, built_at) values (:orgId, null) on conflict do nothing",
+            nativeQuery = true)
+    void insertPendingIfAbsent(@Param("orgId") String orgId);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select s from ReorderStatsState s where s.orgId = :orgId")
+    Optional<ReorderStatsState> findForUpdate(@Param("orgId") String orgId);
+}
@@ -43,7 +43,7 @@ public class AssistantService {
                 .limit(PROMPT_CATALOG_LIMIT)
                 .toList();
 
-        Optional<AssistantChatResponse> aiResponse = cacheOnly
+        Optional<AssistantChatResponse> aiResponse = cacheOnly || openAiClient.isCircuitOpen()
                 ? Optional.empty()
                 : openAiClient.generateAssistantResponse(
                 request.message(),
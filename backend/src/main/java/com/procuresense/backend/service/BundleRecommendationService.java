@@ -2,24 +2,33 @@ package com.procuresense.backend.service;
 
 import com.procuresense.backend.model.BundleInsight;
 import com.procuresense.backend.model.BundleRecommendation;
-import com.procuresense.backend.model.Purchase;
+import com.procuresense.backend.model.PurchaseHistoryRow;
 import com.procuresense.backend.repository.BundleInsightRepository;
 import com.procuresense.backend.repository.PurchaseRepository;
+import com.procuresense.backend.service.ai.BundleRationalePrompt;
+import com.procuresense.backend.service.ai.OpenAiCallExecutor;
 import com.procuresense.backend.service.ai.OpenAiClient;
+import com.procuresense.backend.service.ai.OpenAiRefreshQueue;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.util.StringUtils;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.HashSet;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Objects;
+import java.util.Optional;
 import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 public class BundleRecommendationService {
@@ -29,13 +38,23 @@ public class BundleRecommendationService {
     private final PurchaseRepository purchaseRepository;
     private final BundleInsightRepository bundleInsightRepository;
     private final OpenAiClient openAiClient;
+    private final OpenAiCallExecutor openAiCallExecutor;
+    private final OpenAiRefreshQueue refreshQueue;
+    private final TransactionTemplate readOnlyTransaction;
 
     public BundleRecommendationService(PurchaseRepository purchaseRepository,
                                        BundleInsightRepository bundleInsightRepository,
-                                       OpenAiClient openAiClient) {
+                                       OpenAiClient openAiClient,
+                                       OpenAiCallExecutor openAiCallExecutor,
+                                       OpenAiRefreshQueue refreshQueue,
+                                       PlatformTransactionManager transactionManager) {
         this.purchaseRepository = purchaseRepository;
         this.bundleInsightRepository = bundleInsightRepository;
         this.openAiClient = openAiClient;
+        this.openAiCallExecutor = openAiCallExecutor;
+        this.refreshQueue = refreshQueue;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
     }
 
     public List<BundleRecommendation> getBundlesForSku(String orgId, String sku) {
@@ -47,109 +66,178 @@ public class BundleRecommendationService {
             return List.of();
         }
         String normalizedSku = sku.trim();
-        List<Purchase> purchases = purchaseRepository.findByOrgIdOrderByProductSkuAscPurchasedAtAsc(orgId);
-        String primaryName = purchases.stream()
-                .map(Purchase::getProduct)
-                .filter(Objects::nonNull)
-                .filter(product -> StringUtils.hasText(product.getSku()))
-                .filter(product -> normalizedSku.equalsIgnoreCase(product.getSku()))
-                .map(product -> StringUtils.hasText(product.getName()) ? product.getName() : normalizedSku)
-                .findFirst()
-                .orElse(normalizedSku);
-        Map<String, List<Purchase>> orders = purchases.stream()
-                .collect(Collectors.groupingBy(this::orderKey, LinkedHashMap::new, Collectors.toList()));
+        CoPurchases coPurchases = readOnlyTransaction.execute(status -> {
+            try (Stream<PurchaseHistoryRow> history =
+                         purchaseRepository.streamOrdersContainingSku(orgId, normalizedSku)) {
+                return collectCoPurchases(history.iterator(), normalizedSku);
+            }
+        });
 
         Map<String, BundleStats> counts = new HashMap<>();
-        for (List<Purchase> orderPurchases : orders.values()) {
-            boolean containsSku = orderPurchases.stream()
-                    .anyMatch(p -> p.getProduct() != null
-                            && StringUtils.hasText(p.getProduct().getSku())
-                            && normalizedSku.equalsIgnoreCase(p.getProduct().getSku()));
-            if (!containsSku) {
-                continue;
-            }
-            Set<String> seen = new HashSet<>();
-            for (Purchase purchase : orderPurchases) {
-                if (purchase.getProduct() == null || purchase.getProduct().getSku() == null) {
-                    continue;
-                }
-                String otherSku = purchase.getProduct().getSku();
+        for (String orderKey : coPurchases.ordersWithSku()) {
+            for (Map.Entry<String, String> other : coPurchases.orders().get(orderKey).entrySet()) {
+                String otherSku = other.getKey();
                 if (normalizedSku.equalsIgnoreCase(otherSku)) {
                     continue;
                 }
-                if (!seen.add(otherSku)) {
-                    continue;
-                }
-                counts.compute(otherSku, (key, existing) -> {
-                    if (existing == null) {
-                        existing = new BundleStats(otherSku, purchase.getProduct().getName());
-                    }
-                    existing.increment();
-                    return existing;
-                });
+                counts.computeIfAbsent(otherSku, key -> new BundleStats(key, other.getValue())).increment();
             }
         }
 
-        return counts.values().stream()
+        List<BundleStats> ranked = counts.values().stream()
                 .sorted((a, b) -> Long.compare(b.count, a.count))
-                .map(stats -> buildRecommendation(orgId, normalizedSku, primaryName, stats, cacheOnly))
-                .collect(Collectors.toList());
-    }
-
-    private BundleRecommendation buildRecommendation(String orgId,
-                                                     String sku,
-                                                     String skuName,
-                                                     BundleStats stats,
-                                                     boolean cacheOnly) {
-        String fingerprint = sku + "|" + stats.relatedSku + "|" + stats.count;
-        String rationale = bundleInsightRepository.findByOrgIdAndSkuAndRelatedSku(orgId, sku, stats.relatedSku)
-                .filter(insight -> fingerprint.equals(insight.getFingerprint()))
-                .map(insight -> {
-                    log.debug("Bundle rationale cache hit for org={} sku={} related={}", orgId, sku, stats.relatedSku);
-                    return insight.getRationaleText();
-                })
-                .orElseGet(() -> generateRationale(orgId, sku, skuName, stats, fingerprint, cacheOnly));
-        return new BundleRecommendation(orgId, sku, stats.relatedSku, stats.relatedName, stats.count, rationale);
+                .toList();
+        return buildRecommendations(orgId, normalizedSku, coPurchases.primaryName(), ranked, cacheOnly);
     }
 
-    private String generateRationale(String orgId,
-                                     String sku,
-                                     String skuName,
-                                     BundleStats stats,
-                                     String fingerprint,
-                                     boolean cacheOnly) {
-        String promptFriendlyName = StringUtils.hasText(stats.relatedName) ? stats.relatedName : stats.relatedSku;
+    private List<BundleRecommendation> buildRecommendations(String orgId,
+                                                            String sku,
+                                                            String skuName,
+                                                            List<BundleStats> ranked,
+                                                            boolean cacheOnly) {
+        if (ranked.isEmpty()) {
+            return List.of();
+        }
+        Map<String, BundleInsight> cached = loadInsights(orgId, sku);
+        boolean fallbackOnly = cacheOnly || openAiClient.isCircuitOpen();
         String primaryFriendlyName = StringUtils.hasText(skuName) ? skuName : sku;
-        String fallback = String.format("%s is ordered alongside %s in %d historical orders, so stocking them together prevents misses.",
-                promptFriendlyName, primaryFriendlyName, stats.count);
-        if (cacheOnly) {
-            return fallback;
+        List<String> rationales = new ArrayList<>(ranked.size());
+        List<Integer> misses = new ArrayList<>();
+        for (BundleStats stats : ranked) {
+            BundleInsight insight = cached.get(stats.relatedSku);
+            if (insight != null && fingerprint(sku, stats).equals(insight.getFingerprint())) {
+                log.debug("Bundle rationale cache hit for org={} sku={} related={}", orgId, sku, stats.relatedSku);
+                rationales.add(insight.getRationaleText());
+            } else if (fallbackOnly) {
+                rationales.add(fallbackRationale(primaryFriendlyName, stats));
+            } else {
+                misses.add(rationales.size());
+                rationales.add(null);
+            }
+        }
+        if (!misses.isEmpty()) {
+            List<BundleStats> stale = misses.stream().map(ranked::get).toList();
+            if (refreshQueue.isEnabled()) {
+                for (int index : misses) {
+                    rationales.set(index, previousRationale(primaryFriendlyName, ranked.get(index), cached));
+                }
+                refreshQueue.submit(stale, stats -> "bundle|" + orgId + "|" + sku + "|" + stats.relatedSku,
+                        pending -> generateRationales(orgId, sku, primaryFriendlyName, pending,
+                                loadInsights(orgId, sku)));
+            } else {
+                List<String> generated = generateRationales(orgId, sku, primaryFriendlyName, stale, cached);
+                for (int i = 0; i < misses.size(); i++) {
+                    rationales.set(misses.get(i), generated.get(i));
+                }
+            }
         }
-        String generated = openAiClient.generateBundleRationale(sku, primaryFriendlyName, stats.relatedSku, promptFriendlyName, stats.count)
-                .orElse(fallback);
+        List<BundleRecommendation> recommendations = new ArrayList<>(ranked.size());
+        for (int i = 0; i < ranked.size(); i++) {
+            BundleStats stats = ranked.get(i);
+            recommendations.add(new BundleRecommendation(orgId, sku, stats.relatedSku, stats.relatedName,
+                    stats.count, rationales.get(i)));
+        }
+        return recommendations;
+    }
+
+    private List<String> generateRationales(String orgId,
+                                            String sku,
+                                            String primaryFriendlyName,
+                                            List<BundleStats> stale,
+                                            Map<String, BundleInsight> existing) {
+        List<BundleRationalePrompt> prompts = stale.stream()
+                .map(stats -> new BundleRationalePrompt(sku, primaryFriendlyName, stats.relatedSku,
+                        relatedFriendlyName(stats), stats.count))
+                .toList();
+        List<Optional<String>> generated = openAiCallExecutor.mapInBatches(prompts,
+                openAiClient::generateBundleRationales);
         if (!openAiClient.isEnabled()) {
-            log.debug("OpenAI disabled; using deterministic bundle rationale for org={} sku={} related={}", orgId, sku, stats.relatedSku);
+            log.debug("OpenAI disabled; using deterministic bundle rationales for org={} sku={}", orgId, sku);
         }
-        BundleInsight insight = bundleInsightRepository.findByOrgIdAndSkuAndRelatedSku(orgId, sku, stats.relatedSku)
-                .orElseGet(BundleInsight::new);
-        insight.setOrgId(orgId);
-        insight.setSku(sku);
-        insight.setRelatedSku(stats.relatedSku);
-        insight.setCoPurchaseCount(stats.count);
-        insight.setRationaleText(generated);
-        insight.setFingerprint(fingerprint);
-        bundleInsightRepository.save(insight);
-        return generated;
+        List<String> rationales = new ArrayList<>(stale.size());
+        List<BundleInsight> insights = new ArrayList<>(stale.size());
+        for (int i = 0; i < stale.size(); i++) {
+            BundleStats stats = stale.get(i);
+            Optional<String> answer = generated.get(i);
+            String rationale = answer != null && answer.isPresent()
+                    ? answer.get()
+                    : fallbackRationale(primaryFriendlyName, stats);
+            rationales.add(rationale);
+            if (answer == null) {
+                continue;
+            }
+            BundleInsight insight = existing.getOrDefault(stats.relatedSku, new BundleInsight());
+            insight.setOrgId(orgId);
+            insight.setSku(sku);
+            insight.setRelatedSku(stats.relatedSku);
+            insight.setCoPurchaseCount(stats.count);
+            insight.setRationaleText(rationale);
+            insight.setFingerprint(fingerprint(sku, stats));
+            insights.add(insight);
+        }
+        if (!insights.isEmpty()) {
+            bundleInsightRepository.saveAll(insights);
+        }
+        return rationales;
+    }
+
+    private Map<String, BundleInsight> loadInsights(String orgId, String sku) {
+        return bundleInsightRepository.findByOrgIdAndSku(orgId, sku).stream()
+                .collect(Collectors.toMap(BundleInsight::getRelatedSku, Function.identity(), (a, b) -> a));
+    }
+
+    private static String previousRationale(String primaryFriendlyName, BundleStats stats,
+                                            Map<String, BundleInsight> cached) {
+        BundleInsight insight = cached.get(stats.relatedSku);
+        if (insight != null && StringUtils.hasText(insight.getRationaleText())) {
+            return insight.getRationaleText();
+        }
+        return fallbackRationale(primaryFriendlyName, stats);
+    }
+
+    private static String fallbackRationale(String primaryFriendlyName, BundleStats stats) {
+        return String.format("%s is ordered alongside %s in %d historical orders, so stocking them together prevents misses.",
+                relatedFriendlyName(stats), primaryFriendlyName, stats.count);
+    }
+
+    private static String relatedFriendlyName(BundleStats stats) {
+        return StringUtils.hasText(stats.relatedName) ? stats.relatedName : stats.relatedSku;
+    }
+
+    private static String fingerprint(String sku, BundleStats stats) {
+        return sku + "|" + stats.relatedSku + "|" + stats.count;
+    }
+
+    private static CoPurchases collectCoPurchases(Iterator<PurchaseHistoryRow> rows, String sku) {
+        Map<String, Map<String, String>> orders = new HashMap<>();
+        Set<String> ordersWithSku = new LinkedHashSet<>();
+        String primaryName = null;
+        while (rows.hasNext()) {
+            PurchaseHistoryRow row = rows.next();
+            String orderKey = orderKey(row);
+            orders.computeIfAbsent(orderKey, key -> new LinkedHashMap<>()).putIfAbsent(row.sku(), row.productName());
+            if (sku.equalsIgnoreCase(row.sku())) {
+                ordersWithSku.add(orderKey);
+                if (primaryName == null) {
+                    primaryName = StringUtils.hasText(row.productName()) ? row.productName() : sku;
+                }
+            }
+        }
+        return new CoPurchases(orders, ordersWithSku, primaryName != null ? primaryName : sku);
     }
 
-    private String orderKey(Purchase purchase) {
-        if (StringUtils.hasText(purchase.getOrderId())) {
-            return purchase.getOrderId();
+    private static String orderKey(PurchaseHistoryRow row) {
+        if (StringUtils.hasText(row.orderId())) {
+            return row.orderId();
         }
-        LocalDate date = purchase.getPurchasedAt() != null ? purchase.getPurchasedAt().toLocalDate() : LocalDate.MIN;
+        LocalDate date = row.purchasedAt() != null ? row.purchasedAt().toLocalDate() : LocalDate.MIN;
         return "DAY-" + date;
     }
 
+    private record CoPurchases(Map<String, Map<String, String>> orders, Set<String> ordersWithSku,
+                               String primaryName) {
+    }
+
     private static class BundleStats {
         private final String relatedSku;
         private final String relatedName;
@@ -0,0 +1,114 @@
+package com.procuresense.backend.service;
+
+import java.time.OffsetDateTime;
+
+// Per-SKU interval statistics over one reusable buffer; intervals are whole days like Duration.toDays, at least one.
+final class CadenceAccumulator {
+
+    private static final long SECONDS_PER_DAY = 86_400;
+
+    private long[] intervals = new long[16];
+    private int count;
+    private long min;
+    private long max;
+    private boolean started;
+    private long previousSecond;
+    private int previousNano;
+
+    void reset() {
+        count = 0;
+        started = false;
+        min = Long.MAX_VALUE;
+        max = Long.MIN_VALUE;
+    }
+
+    // purchases must arrive in ascending purchasedAt order
+    void addPurchase(OffsetDateTime purchasedAt) {
+        long second = purchasedAt.toEpochSecond();
+        int nano = purchasedAt.getNano();
+        if (started) {
+            long seconds = second - previousSecond - (nano < previousNano ? 1 : 0);
+            addInterval(Math.max(1, seconds / SECONDS_PER_DAY));
+        }
+        started = true;
+        previousSecond = second;
+        previousNano = nano;
+    }
+
+    void addInterval(long days) {
+        if (count == intervals.length) {
+            long[] grown = new long[count * 2];
+            System.arraycopy(intervals, 0, grown, 0, count);
+            intervals = grown;
+        }
+        intervals[count++] = days;
+        min = Math.min(min, days);
+        max = Math.max(max, days);
+    }
+
+    int intervalCount() {
+        return count;
+    }
+
+    long minDays() {
+        return min;
+    }
+
+    long maxDays() {
+        return max;
+    }
+
+    // linear-time selection; reorders the buffer, so call once per SKU after the last interval
+    long medianDays() {
+        int middle = count / 2;
+        long upper = select(intervals, count, middle);
+        if (count % 2 == 1) {
+            return upper;
+        }
+        // selection leaves everything before the middle no greater than it; the lower median is their maximum
+        long lower = intervals[0];
+        for (int i = 1; i < middle; i++) {
+            lower = Math.max(lower, intervals[i]);
+        }
+        return ReorderCadence.roundMedian((lower + upper) / 2.0);
+    }
+
+    double confidence() {
+        return ReorderCadence.confidence(min, max, count);
+    }
+
+    private static long select(long[] values, int size, int k) {
+        int low = 0;
+        int high = size - 1;
+        while (low < high) {
+            long pivot = medianOfThree(values[low], values[(low + high) >>> 1], values[high]);
+            int lessEnd = low;
+            int index = low;
+            int greaterStart = high;
+            while (index <= greaterStart) {
+                long value = values[index];
+                if (value < pivot) {
+                    values[index++] = values[lessEnd];
+                    values[lessEnd++] = value;
+                } else if (value > pivot) {
+                    values[index] = values[greaterStart];
+                    values[greaterStart--] = value;
+                } else {
+                    index++;
+                }
+            }
+            if (k < lessEnd) {
+                high = lessEnd - 1;
+            } else if (k > greaterStart) {
+                low = greaterStart + 1;
+            } else {
+                return pivot;
+            }
+        }
+        return values[low];
+    }
+
+    private static long medianOfThree(long a, long b, long c) {
+        return Math.max(Math.min(a, b), Math.min(Math.max(a, b), c));
+    }
+}
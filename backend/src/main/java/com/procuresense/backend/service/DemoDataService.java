@@ -6,6 +6,7 @@ import com.procuresense.backend.model.Product;
 import com.procuresense.backend.model.Purchase;
 import com.procuresense.backend.model.PurchaseSummary;
 import com.procuresense.backend.repository.ProductRepository;
+import com.procuresense.backend.repository.PurchaseImportFileRepository;
 import com.procuresense.backend.repository.PurchaseRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -21,8 +22,10 @@ import java.io.InputStreamReader;
 import java.nio.charset.StandardCharsets;
 import java.time.OffsetDateTime;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.math.BigDecimal;
 import java.util.stream.Collectors;
 
@@ -34,19 +37,28 @@ public class DemoDataService {
     private final DemoDataProperties properties;
     private final ProductRepository productRepository;
     private final PurchaseRepository purchaseRepository;
+    private final PurchaseImportFileRepository purchaseImportFileRepository;
     private final ResourceLoader resourceLoader;
     private final PurchaseLoadAuditService purchaseLoadAuditService;
+    private final ReorderStatsService reorderStatsService;
+    private final ReorderPredictionCache reorderPredictionCache;
 
     public DemoDataService(DemoDataProperties properties,
                            ProductRepository productRepository,
                            PurchaseRepository purchaseRepository,
+                           PurchaseImportFileRepository purchaseImportFileRepository,
                            ResourceLoader resourceLoader,
-                           PurchaseLoadAuditService purchaseLoadAuditService) {
+                           PurchaseLoadAuditService purchaseLoadAuditService,
+                           ReorderStatsService reorderStatsService,
+                           ReorderPredictionCache reorderPredictionCache) {
         this.properties = properties;
         this.productRepository = productRepository;
         this.purchaseRepository = purchaseRepository;
+        this.purchaseImportFileRepository = purchaseImportFileRepository;
         this.resourceLoader = resourceLoader;
         this.purchaseLoadAuditService = purchaseLoadAuditService;
+        this.reorderStatsService = reorderStatsService;
+        this.reorderPredictionCache = reorderPredictionCache;
     }
 
     @Transactional
@@ -54,14 +66,22 @@ public class DemoDataService {
         String targetOrg = requireOrgId(orgId);
         log.info("Loading demo data for {} from {} and {}", targetOrg, properties.productsFile(), properties.purchasesFile());
         purchaseRepository.deleteByOrgId(targetOrg);
+        // the org's purchases are replaced, so earlier uploads must be importable again
+        purchaseImportFileRepository.deleteByOrgId(targetOrg);
+        reorderStatsService.reset(targetOrg);
 
-        Map<String, Product> products = loadProducts();
+        Set<String> renamedSkus = new HashSet<>();
+        Map<String, Product> products = loadProducts(renamedSkus);
         productRepository.saveAll(products.values());
         List<Purchase> purchases = loadPurchases(products, targetOrg);
         purchaseRepository.saveAll(purchases);
         if (!purchases.isEmpty()) {
             purchaseLoadAuditService.markLoaded(targetOrg);
         }
+        reorderPredictionCache.invalidate(targetOrg);
+        if (!renamedSkus.isEmpty()) {
+            reorderPredictionCache.invalidateAll();
+        }
         return new DemoLoadResponse(targetOrg, purchases.size());
     }
 
@@ -69,12 +89,15 @@ public class DemoDataService {
         return buildSummary(requireOrgId(orgId));
     }
 
-    private Map<String, Product> loadProducts() {
+    private Map<String, Product> loadProducts(Set<String> renamedSkus) {
         List<String[]> rows = readCsv(properties.productsFile());
         Map<String, Product> products = new HashMap<>();
         for (String[] row : rows) {
             String sku = row[0];
             Product product = productRepository.findBySku(sku).orElseGet(Product::new);
+            if (product.getId() != null && !row[1].equals(product.getName())) {
+                renamedSkus.add(sku);
+            }
             product.setSku(sku);
             product.setName(row[1]);
             product.setCategory(row[2]);
@@ -0,0 +1,10 @@
+package com.procuresense.backend.service;
+
+@FunctionalInterface
+public interface ImportProgressListener {
+
+    ImportProgressListener NONE = (importedRows, rejectedRows, duplicateRows) -> {
+    };
+
+    void onProgress(int importedRows, int rejectedRows, int duplicateRows);
+}
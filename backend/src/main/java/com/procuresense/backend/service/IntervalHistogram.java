@@ -0,0 +1,114 @@
+package com.procuresense.backend.service;
+
+import java.util.Arrays;
+
+// Whole-day reorder intervals of one SKU persisted as "days:count,days:count"; its statistics match
+// CadenceAccumulator over the same intervals.
+final class IntervalHistogram {
+
+    private long[] days;
+    private int[] counts;
+    private int distinct;
+    private int total;
+
+    IntervalHistogram() {
+        this(8);
+    }
+
+    private IntervalHistogram(int capacity) {
+        days = new long[capacity];
+        counts = new int[capacity];
+    }
+
+    static IntervalHistogram decode(String text) {
+        if (text == null || text.isEmpty()) {
+            return new IntervalHistogram();
+        }
+        int entries = 1;
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) == ',') {
+                entries++;
+            }
+        }
+        IntervalHistogram histogram = new IntervalHistogram(entries + 4);
+        int start = 0;
+        while (start < text.length()) {
+            int separator = text.indexOf(':', start);
+            int end = text.indexOf(',', separator);
+            if (end < 0) {
+                end = text.length();
+            }
+            histogram.days[histogram.distinct] = Long.parseLong(text, start, separator, 10);
+            int count = Integer.parseInt(text, separator + 1, end, 10);
+            histogram.counts[histogram.distinct++] = count;
+            histogram.total += count;
+            start = end + 1;
+        }
+        return histogram;
+    }
+
+    void add(long intervalDays) {
+        int index = Arrays.binarySearch(days, 0, distinct, intervalDays);
+        if (index < 0) {
+            index = -index - 1;
+            if (distinct == days.length) {
+                days = Arrays.copyOf(days, distinct * 2);
+                counts = Arrays.copyOf(counts, distinct * 2);
+            }
+            System.arraycopy(days, index, days, index + 1, distinct - index);
+            System.arraycopy(counts, index, counts, index + 1, distinct - index);
+            days[index] = intervalDays;
+            counts[index] = 0;
+            distinct++;
+        }
+        counts[index]++;
+        total++;
+    }
+
+    int intervalCount() {
+        return total;
+    }
+
+    long minDays() {
+        return days[0];
+    }
+
+    long maxDays() {
+        return days[distinct - 1];
+    }
+
+    long medianDays() {
+        int middle = total / 2;
+        long upper = valueAt(middle);
+        if (total % 2 == 1) {
+            return upper;
+        }
+        return ReorderCadence.roundMedian((valueAt(middle - 1) + upper) / 2.0);
+    }
+
+    double confidence() {
+        return ReorderCadence.confidence(minDays(), maxDays(), total);
+    }
+
+    String encode() {
+        StringBuilder text = new StringBuilder(distinct * 8);
+        for (int i = 0; i < distinct; i++) {
+            if (i > 0) {
+                text.append(',');
+            }
+            text.append(days[i]).append(':').append(counts[i]);
+        }
+        return text.toString();
+    }
+
+    private long valueAt(int rank) {
+        int seen = 0;
+        for (int i = 0; i < distinct; i++) {
+            seen += counts[i];
+            if (rank < seen) {
+                return days[i];
+            }
+        }
+        throw new IllegalStateException("Rank " + rank + " is outside " + total + " intervals");
+    }
+}
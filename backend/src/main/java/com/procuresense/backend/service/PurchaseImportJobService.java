@@ -0,0 +1,280 @@
+package com.procuresense.backend.service;
+
+import com.procuresense.backend.config.PurchaseImportProperties;
+import com.procuresense.backend.model.PurchaseImportJobResponse;
+import com.procuresense.backend.model.PurchaseImportJobResponse.Status;
+import com.procuresense.backend.model.PurchaseImportResponse;
+import com.procuresense.backend.service.exception.CsvValidationException;
+import com.procuresense.backend.service.exception.ImportQueueFullException;
+import com.procuresense.backend.service.ingest.ContentFingerprints;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Service
+public class PurchaseImportJobService {
+
+    private static final Logger log = LoggerFactory.getLogger(PurchaseImportJobService.class);
+
+    private final PurchaseImportService purchaseImportService;
+    private final Clock clock;
+    private final int maxQueuedJobs;
+    private final Duration jobRetention;
+    private final ExecutorService executor;
+    private final Map<String, ImportJob> jobs = new ConcurrentHashMap<>();
+    // an org key is present while a worker is draining that org's jobs; guarded by itself
+    private final Map<String, Deque<ImportJob>> pendingByOrg = new HashMap<>();
+    private int outstandingJobs;
+
+    public PurchaseImportJobService(PurchaseImportService purchaseImportService,
+                                    Clock clock,
+                                    PurchaseImportProperties properties) {
+        this.purchaseImportService = purchaseImportService;
+        this.clock = clock;
+        this.maxQueuedJobs = properties.async().maxQueuedJobs();
+        this.jobRetention = properties.async().jobRetention();
+        this.executor = Executors.newFixedThreadPool(properties.async().workers(), workerThreads());
+    }
+
+    public PurchaseImportJobResponse submit(MultipartFile file, String orgId) {
+        if (!StringUtils.hasText(orgId)) {
+            throw new IllegalArgumentException("X-Org-Id header is required");
+        }
+        if (file == null || file.isEmpty()) {
+            throw new CsvValidationException("Upload file is required");
+        }
+        evictExpiredJobs();
+        ensureCapacity();
+
+        MessageDigest digest = ContentFingerprints.newDigest();
+        Path spooled = spool(file, digest);
+        ImportJob job = new ImportJob(UUID.randomUUID().toString(), orgId, spooled, file.getContentType(),
+                ContentFingerprints.toHex(digest), OffsetDateTime.now(clock));
+        jobs.put(job.id, job);
+        try {
+            enqueue(job);
+        } catch (RuntimeException ex) {
+            jobs.remove(job.id);
+            deleteQuietly(spooled);
+            throw ex;
+        }
+        log.info("Queued purchase import job {} for org {}", job.id, orgId);
+        return job.toResponse(clock);
+    }
+
+    public Optional<PurchaseImportJobResponse> findJob(String jobId, String orgId) {
+        ImportJob job = jobs.get(jobId);
+        if (job == null || !job.orgId.equals(orgId)) {
+            return Optional.empty();
+        }
+        return Optional.of(job.toResponse(clock));
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void ensureCapacity() {
+        synchronized (pendingByOrg) {
+            if (outstandingJobs >= maxQueuedJobs) {
+                throw new ImportQueueFullException("Import queue is full; retry later");
+            }
+        }
+    }
+
+    private void enqueue(ImportJob job) {
+        synchronized (pendingByOrg) {
+            if (outstandingJobs >= maxQueuedJobs) {
+                throw new ImportQueueFullException("Import queue is full; retry later");
+            }
+            outstandingJobs++;
+            Deque<ImportJob> queue = pendingByOrg.get(job.orgId);
+            if (queue != null) {
+                queue.add(job);
+                return;
+            }
+            pendingByOrg.put(job.orgId, new ArrayDeque<>());
+        }
+        executor.execute(() -> drain(job));
+    }
+
+    private void drain(ImportJob first) {
+        ImportJob next = first;
+        while (next != null) {
+            try {
+                run(next);
+            } finally {
+                next = finish(first.orgId);
+            }
+        }
+    }
+
+    private ImportJob finish(String orgId) {
+        synchronized (pendingByOrg) {
+            outstandingJobs--;
+            ImportJob next = pendingByOrg.get(orgId).poll();
+            if (next == null) {
+                pendingByOrg.remove(orgId);
+            }
+            return next;
+        }
+    }
+
+    private void run(ImportJob job) {
+        job.start(OffsetDateTime.now(clock));
+        try (InputStream input = Files.newInputStream(job.spooledFile)) {
+            PurchaseImportResponse result = purchaseImportService.importCsv(input, job.contentType, job.orgId,
+                    job.contentSha256, job::progress);
+            job.complete(result, OffsetDateTime.now(clock));
+            log.info("Purchase import job {} completed: {} imported, {} rejected",
+                    job.id, result.importedRows(), result.rejectedRows());
+        } catch (Exception ex) {
+            job.fail(ex.getMessage(), OffsetDateTime.now(clock));
+            log.warn("Purchase import job {} failed: {}", job.id, ex.getMessage());
+        } catch (Error error) {
+            // the job must not stay RUNNING; the worker survives to drain the org's queue
+            job.fail(String.valueOf(error), OffsetDateTime.now(clock));
+            log.error("Purchase import job {} failed", job.id, error);
+        } finally {
+            deleteQuietly(job.spooledFile);
+        }
+    }
+
+    private Path spool(MultipartFile file, MessageDigest digest) {
+        try {
+            Path spooled = Files.createTempFile("purchase-import-", ".upload");
+            try (InputStream input = new DigestInputStream(file.getInputStream(), digest)) {
+                Files.copy(input, spooled, StandardCopyOption.REPLACE_EXISTING);
+            }
+            return spooled;
+        } catch (IOException e) {
+            throw new CsvValidationException("Unable to read uploaded CSV: " + e.getMessage());
+        }
+    }
+
+    private void evictExpiredJobs() {
+        OffsetDateTime cutoff = OffsetDateTime.now(clock).minus(jobRetention);
+        jobs.values().removeIf(job -> job.finishedAt != null && job.finishedAt.isBefore(cutoff));
+    }
+
+    private void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("Unable to delete spooled import {}: {}", path, e.getMessage());
+        }
+    }
+
+    private static ThreadFactory workerThreads() {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "purchase-import-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private static class ImportJob {
+        private final String id;
+        private final String orgId;
+        private final Path spooledFile;
+        private final String contentType;
+        private final String contentSha256;
+        private final OffsetDateTime submittedAt;
+        private volatile Status status = Status.QUEUED;
+        private volatile int importedRows;
+        private volatile int rejectedRows;
+        private volatile int duplicateRows;
+        private volatile boolean fileAlreadyImported;
+        private volatile List<String> sampleErrors = List.of();
+        private volatile OffsetDateTime startedAt;
+        private volatile OffsetDateTime finishedAt;
+        private volatile String error;
+
+        private ImportJob(String id,
+                          String orgId,
+                          Path spooledFile,
+                          String contentType,
+                          String contentSha256,
+                          OffsetDateTime submittedAt) {
+            this.id = id;
+            this.orgId = orgId;
+            this.spooledFile = spooledFile;
+            this.contentType = contentType;
+            this.contentSha256 = contentSha256;
+            this.submittedAt = submittedAt;
+        }
+
+        private void start(OffsetDateTime now) {
+            startedAt = now;
+            status = Status.RUNNING;
+        }
+
+        private void progress(int imported, int rejected, int duplicates) {
+            importedRows = imported;
+            rejectedRows = rejected;
+            duplicateRows = duplicates;
+        }
+
+        private void complete(PurchaseImportResponse result, OffsetDateTime now) {
+            progress(result.importedRows(), result.rejectedRows(), result.duplicateRows());
+            fileAlreadyImported = result.fileAlreadyImported();
+            sampleErrors = List.copyOf(result.sampleErrors());
+            finishedAt = now;
+            status = Status.COMPLETED;
+        }
+
+        private void fail(String message, OffsetDateTime now) {
+            error = message;
+            finishedAt = now;
+            status = Status.FAILED;
+        }
+
+        private PurchaseImportJobResponse toResponse(Clock clock) {
+            int imported = importedRows;
+            int rejected = rejectedRows;
+            int duplicates = duplicateRows;
+            int processed = imported + rejected + duplicates;
+            return new PurchaseImportJobResponse(id, orgId, status, processed, imported, rejected, duplicates,
+                    fileAlreadyImported, throughput(processed, clock), sampleErrors, submittedAt, startedAt,
+                    finishedAt, error);
+        }
+
+        private double throughput(int processed, Clock clock) {
+            OffsetDateTime started = startedAt;
+            if (started == null || processed == 0) {
+                return 0.0;
+            }
+            OffsetDateTime end = finishedAt != null ? finishedAt : OffsetDateTime.now(clock);
+            long millis = Math.max(1, Duration.between(started, end).toMillis());
+            return Math.round(processed * 1000.0 / millis * 10.0) / 10.0;
+        }
+    }
+}
@@ -1,61 +1,74 @@
 package com.procuresense.backend.service;
 
-import com.procuresense.backend.model.Product;
-import com.procuresense.backend.model.Purchase;
+import com.procuresense.backend.config.PurchaseImportProperties;
+import com.procuresense.backend.model.PurchaseImportFile;
 import com.procuresense.backend.model.PurchaseImportResponse;
-import com.procuresense.backend.repository.ProductRepository;
-import com.procuresense.backend.repository.PurchaseRepository;
+import com.procuresense.backend.repository.PurchaseImportFileRepository;
 import com.procuresense.backend.service.exception.CsvValidationException;
-import org.apache.commons.csv.CSVFormat;
-import org.apache.commons.csv.CSVParser;
-import org.apache.commons.csv.CSVRecord;
+import com.procuresense.backend.service.ingest.CompressedUploads;
+import com.procuresense.backend.service.ingest.ContentFingerprints;
+import com.procuresense.backend.service.ingest.PurchaseCsvParser;
+import com.procuresense.backend.service.ingest.PurchaseIngestEngine;
+import com.procuresense.backend.service.ingest.PurchaseRow;
+import com.procuresense.backend.service.ingest.RowSink;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.util.StringUtils;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
-import java.math.BigDecimal;
+import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.time.Clock;
 import java.time.OffsetDateTime;
 import java.util.ArrayList;
-import java.util.LinkedHashMap;
-import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Locale;
-import java.util.Map;
-import java.util.Set;
 
 @Service
 public class PurchaseImportService {
 
-    private static final Set<String> REQUIRED_HEADERS = Set.of(
-            "order_id",
-            "sku",
-            "product_name",
-            "category",
-            "quantity",
-            "unit_price",
-            "purchased_at"
-    );
+    private static final Logger log = LoggerFactory.getLogger(PurchaseImportService.class);
     private static final int MAX_SAMPLE_ERRORS = 5;
 
-    private final ProductRepository productRepository;
-    private final PurchaseRepository purchaseRepository;
+    private final PurchaseIngestEngine ingestEngine;
+    private final PurchaseCsvParser csvParser;
     private final PurchaseLoadAuditService purchaseLoadAuditService;
-
-    public PurchaseImportService(ProductRepository productRepository,
-                                 PurchaseRepository purchaseRepository,
-                                 PurchaseLoadAuditService purchaseLoadAuditService) {
-        this.productRepository = productRepository;
-        this.purchaseRepository = purchaseRepository;
+    private final PurchaseImportFileRepository importFileRepository;
+    private final ReorderStatsService reorderStatsService;
+    private final ReorderPredictionCache reorderPredictionCache;
+    private final TransactionTemplate transactionTemplate;
+    private final Clock clock;
+    private final int chunkSize;
+
+    public PurchaseImportService(PurchaseIngestEngine ingestEngine,
+                                 PurchaseCsvParser csvParser,
+                                 PurchaseLoadAuditService purchaseLoadAuditService,
+                                 PurchaseImportFileRepository importFileRepository,
+                                 ReorderStatsService reorderStatsService,
+                                 ReorderPredictionCache reorderPredictionCache,
+                                 PlatformTransactionManager transactionManager,
+                                 Clock clock,
+                                 PurchaseImportProperties properties) {
+        this.ingestEngine = ingestEngine;
+        this.csvParser = csvParser;
         this.purchaseLoadAuditService = purchaseLoadAuditService;
+        this.importFileRepository = importFileRepository;
+        this.reorderStatsService = reorderStatsService;
+        this.reorderPredictionCache = reorderPredictionCache;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.clock = clock;
+        this.chunkSize = properties.chunkSize();
     }
 
-    @Transactional
     public PurchaseImportResponse importCsv(MultipartFile file, String orgId) {
         if (!StringUtils.hasText(orgId)) {
             throw new IllegalArgumentException("X-Org-Id header is required");
@@ -63,170 +76,129 @@ public class PurchaseImportService {
         if (file == null || file.isEmpty()) {
             throw new CsvValidationException("Upload file is required");
         }
-
-        try (BufferedReader reader = new BufferedReader(new InputStreamReader(file.getInputStream(), StandardCharsets.UTF_8));
-             CSVParser parser = CSVFormat.DEFAULT.builder()
-                     .setHeader()
-                     .setSkipHeaderRecord(true)
-                     .setTrim(true)
-                     .build()
-                     .parse(reader)) {
-
-            Map<String, String> headerLookup = normalizeHeaders(parser.getHeaderMap());
-            validateHeaders(headerLookup.keySet());
-
-            Map<String, Product> productCache = new HashMap<>();
-            Map<String, Product> newProducts = new LinkedHashMap<>();
-            List<Purchase> purchases = new ArrayList<>();
-            List<String> sampleErrors = new ArrayList<>();
-            int imported = 0;
-            int rejected = 0;
-
-            for (CSVRecord record : parser) {
-                try {
-                    Row row = toRow(record, headerLookup);
-                    Product product = resolveProduct(row, productCache, newProducts);
-                    purchases.add(toPurchase(row, product, orgId));
-                    imported++;
-                } catch (IllegalArgumentException ex) {
-                    rejected++;
-                    if (sampleErrors.size() < MAX_SAMPLE_ERRORS) {
-                        sampleErrors.add("Row " + record.getRecordNumber() + ": " + ex.getMessage());
-                    }
-                }
-            }
-
-            if (!newProducts.isEmpty()) {
-                productRepository.saveAll(newProducts.values());
-            }
-            if (!purchases.isEmpty()) {
-                purchaseRepository.saveAll(purchases);
+        try {
+            String contentSha256;
+            try (InputStream input = file.getInputStream()) {
+                contentSha256 = ContentFingerprints.sha256(input);
             }
-            if (imported > 0) {
-                purchaseLoadAuditService.markLoaded(orgId);
+            try (InputStream input = file.getInputStream()) {
+                return importCsv(input, file.getContentType(), orgId, contentSha256, ImportProgressListener.NONE);
             }
-            return new PurchaseImportResponse(imported, rejected, sampleErrors);
         } catch (IOException e) {
             throw new CsvValidationException("Unable to read uploaded CSV: " + e.getMessage());
         }
     }
 
-    private Map<String, String> normalizeHeaders(Map<String, Integer> headerMap) {
-        Map<String, String> normalized = new HashMap<>();
-        headerMap.keySet().forEach(original -> {
-            String key = original == null ? "" : original.trim().toLowerCase(Locale.US);
-            if (StringUtils.hasText(key)) {
-                normalized.put(key, original);
-            }
-        });
-        return normalized;
-    }
+    public PurchaseImportResponse importCsv(InputStream input,
+                                            String contentType,
+                                            String orgId,
+                                            String contentSha256,
+                                            ImportProgressListener listener) {
+        if (!StringUtils.hasText(orgId)) {
+            throw new IllegalArgumentException("X-Org-Id header is required");
+        }
+        if (contentSha256 != null && importFileRepository.existsByOrgIdAndContentSha256(orgId, contentSha256)) {
+            log.info("Skipping purchase import for org {}: file {} was already imported", orgId, contentSha256);
+            return new PurchaseImportResponse(0, 0, 0, true, List.of());
+        }
 
-    private void validateHeaders(Set<String> actualHeaders) {
-        Set<String> missing = new HashSet<>(REQUIRED_HEADERS);
-        missing.removeAll(actualHeaders);
-        if (!missing.isEmpty()) {
-            throw new CsvValidationException("Missing required columns: " + String.join(", ", missing));
+        MessageDigest digest = contentSha256 == null ? ContentFingerprints.newDigest() : null;
+        InputStream source = digest == null ? input : new DigestInputStream(input, digest);
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                CompressedUploads.decode(source, contentType), StandardCharsets.UTF_8))) {
+            ChunkingSink sink = new ChunkingSink(orgId, ingestEngine.openSession(orgId), listener);
+            try {
+                csvParser.parse(reader, sink);
+                sink.finish();
+
+                if (digest != null) {
+                    source.transferTo(OutputStream.nullOutputStream());
+                }
+                recordImportedFile(orgId, digest != null ? ContentFingerprints.toHex(digest) : contentSha256,
+                        sink.imported);
+            } finally {
+                // chunks commit one by one, so a file that fails midway has still changed what predictions see
+                publishCommittedChunks(orgId, sink);
+            }
+            return new PurchaseImportResponse(sink.imported, sink.rejected, sink.duplicates, false, sink.sampleErrors);
+        } catch (IOException e) {
+            throw new CsvValidationException("Unable to read uploaded CSV: " + e.getMessage());
         }
     }
 
-    private Row toRow(CSVRecord record, Map<String, String> headers) {
-        String orderId = getValue(record, headers.get("order_id"));
-        String sku = getValue(record, headers.get("sku"));
-        String productName = getValue(record, headers.get("product_name"));
-        String category = getValue(record, headers.get("category"));
-        String quantityValue = getValue(record, headers.get("quantity"));
-        String unitPriceValue = getValue(record, headers.get("unit_price"));
-        String purchasedAtValue = getValue(record, headers.get("purchased_at"));
-
-        if (!StringUtils.hasText(orderId)) {
-            throw new IllegalArgumentException("order_id is required");
-        }
-        if (!StringUtils.hasText(sku)) {
-            throw new IllegalArgumentException("sku is required");
+    private void publishCommittedChunks(String orgId, ChunkingSink sink) {
+        if (sink.imported > 0) {
+            purchaseLoadAuditService.markLoaded(orgId);
+            reorderPredictionCache.invalidate(orgId);
         }
-        if (!StringUtils.hasText(productName)) {
-            throw new IllegalArgumentException("product_name is required");
-        }
-        if (!StringUtils.hasText(category)) {
-            throw new IllegalArgumentException("category is required");
+        // product names appear in every org's predictions, and a rename can come with duplicate rows only
+        if (sink.session.renamedProducts()) {
+            reorderPredictionCache.invalidateAll();
         }
+    }
 
-        int quantity;
+    private void recordImportedFile(String orgId, String contentSha256, int importedRows) {
         try {
-            quantity = Integer.parseInt(quantityValue);
-        } catch (NumberFormatException e) {
-            throw new IllegalArgumentException("quantity must be an integer");
-        }
-        if (quantity <= 0) {
-            throw new IllegalArgumentException("quantity must be greater than zero");
+            importFileRepository.save(new PurchaseImportFile(orgId, contentSha256, importedRows,
+                    OffsetDateTime.now(clock)));
+        } catch (DataIntegrityViolationException ex) {
+            log.debug("File {} for org {} was recorded by a concurrent import", contentSha256, orgId);
         }
+    }
 
-        BigDecimal unitPrice;
-        try {
-            unitPrice = new BigDecimal(unitPriceValue);
-        } catch (NumberFormatException e) {
-            throw new IllegalArgumentException("unit_price must be numeric");
-        }
-        if (unitPrice.compareTo(BigDecimal.ZERO) <= 0) {
-            throw new IllegalArgumentException("unit_price must be greater than zero");
+    private class ChunkingSink implements RowSink {
+        private final String orgId;
+        private final PurchaseIngestEngine.Session session;
+        private final ImportProgressListener listener;
+        private final List<PurchaseRow> chunk = new ArrayList<>(chunkSize);
+        private final List<String> sampleErrors = new ArrayList<>();
+        private int imported;
+        private int rejected;
+        private int duplicates;
+
+        private ChunkingSink(String orgId, PurchaseIngestEngine.Session session, ImportProgressListener listener) {
+            this.orgId = orgId;
+            this.session = session;
+            this.listener = listener;
         }
 
-        OffsetDateTime purchasedAt;
-        try {
-            purchasedAt = OffsetDateTime.parse(purchasedAtValue);
-        } catch (Exception e) {
-            throw new IllegalArgumentException("purchased_at must be ISO-8601");
+        @Override
+        public void accept(PurchaseRow row) {
+            chunk.add(row);
+            if (chunk.size() >= chunkSize) {
+                flush();
+                listener.onProgress(imported, rejected, duplicates);
+            }
         }
 
-        return new Row(orderId, sku, productName, category, quantity, unitPrice, purchasedAt);
-    }
-
-    private Product resolveProduct(Row row,
-                                   Map<String, Product> productCache,
-                                   Map<String, Product> pendingNewProducts) {
-        return productCache.computeIfAbsent(row.sku(), sku -> {
-            Product existing = productRepository.findBySku(sku).orElse(null);
-            if (existing != null) {
-                existing.setName(row.productName());
-                existing.setCategory(row.category());
-                existing.setUnitPrice(row.unitPrice());
-                return existing;
+        @Override
+        public void reject(long recordNumber, String message) {
+            rejected++;
+            if (sampleErrors.size() < MAX_SAMPLE_ERRORS) {
+                sampleErrors.add("Row " + recordNumber + ": " + message);
             }
-            Product product = new Product();
-            product.setSku(row.sku());
-            product.setName(row.productName());
-            product.setCategory(row.category());
-            product.setUnitPrice(row.unitPrice());
-            pendingNewProducts.putIfAbsent(row.sku(), product);
-            return product;
-        });
-    }
-
-    private Purchase toPurchase(Row row, Product product, String orgId) {
-        Purchase purchase = new Purchase();
-        purchase.setOrgId(orgId);
-        purchase.setOrderId(row.orderId());
-        purchase.setProduct(product);
-        purchase.setQuantity(row.quantity());
-        purchase.setUnitPrice(row.unitPrice());
-        purchase.setPurchasedAt(row.purchasedAt());
-        return purchase;
-    }
+            if (rejected % chunkSize == 0) {
+                listener.onProgress(imported, rejected, duplicates);
+            }
+        }
 
-    private String getValue(CSVRecord record, String columnName) {
-        if (!StringUtils.hasText(columnName)) {
-            return null;
+        private void finish() {
+            if (!chunk.isEmpty()) {
+                flush();
+            }
+            listener.onProgress(imported, rejected, duplicates);
         }
-        return record.get(columnName);
-    }
 
-    private record Row(String orderId,
-                       String sku,
-                       String productName,
-                       String category,
-                       int quantity,
-                       BigDecimal unitPrice,
-                       OffsetDateTime purchasedAt) {
+        private void flush() {
+            Integer inserted = transactionTemplate.execute(status -> {
+                List<PurchaseRow> rows = session.writeChunk(chunk);
+                reorderStatsService.recordInserted(orgId, rows);
+                return rows.size();
+            });
+            int written = inserted == null ? 0 : inserted;
+            imported += written;
+            duplicates += chunk.size() - written;
+            chunk.clear();
+        }
     }
 }
@@ -4,24 +4,28 @@ import com.procuresense.backend.model.PurchaseLoadAudit;
 import com.procuresense.backend.repository.PurchaseLoadAuditRepository;
 import org.springframework.stereotype.Service;
 
+import java.time.Clock;
 import java.time.OffsetDateTime;
 
 @Service
 public class PurchaseLoadAuditService {
 
     private final PurchaseLoadAuditRepository repository;
+    private final Clock clock;
 
-    public PurchaseLoadAuditService(PurchaseLoadAuditRepository repository) {
+    public PurchaseLoadAuditService(PurchaseLoadAuditRepository repository, Clock clock) {
         this.repository = repository;
+        this.clock = clock;
     }
 
     public void markLoaded(String orgId) {
         if (orgId == null || orgId.isBlank()) {
             return;
         }
+        OffsetDateTime now = OffsetDateTime.now(clock);
         PurchaseLoadAudit audit = repository.findById(orgId)
-                .orElseGet(() -> new PurchaseLoadAudit(orgId, OffsetDateTime.now()));
-        audit.setLastLoadedAt(OffsetDateTime.now());
+                .orElseGet(() -> new PurchaseLoadAudit(orgId, now));
+        audit.setLastLoadedAt(now);
         repository.save(audit);
     }
 
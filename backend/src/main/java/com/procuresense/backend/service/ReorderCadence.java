@@ -0,0 +1,22 @@
+package com.procuresense.backend.service;
+
+final class ReorderCadence {
+
+    private ReorderCadence() {
+    }
+
+    static long roundMedian(double median) {
+        return Math.round(median);
+    }
+
+    static double confidence(long minIntervalDays, long maxIntervalDays, int intervalCount) {
+        if (intervalCount == 0) {
+            return 0.0;
+        }
+        double variability = maxIntervalDays == 0 ? 0 : (double) (maxIntervalDays - minIntervalDays) / maxIntervalDays;
+        double coverage = Math.min(1.0, intervalCount / 4.0);
+        double stability = 1.0 - Math.min(1.0, variability);
+        double confidence = 0.4 * coverage + 0.6 * stability;
+        return Math.round(confidence * 100.0) / 100.0;
+    }
+}
@@ -0,0 +1,43 @@
+package com.procuresense.backend.service;
+
+import com.procuresense.backend.model.ReorderPrediction;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Base64;
+
+public record ReorderCursor(OffsetDateTime predictedReorderAt, double confidence, String sku) {
+
+    public static ReorderCursor after(ReorderPrediction prediction) {
+        return new ReorderCursor(prediction.predictedReorderAt(), prediction.confidence(), prediction.sku());
+    }
+
+    public static ReorderCursor decode(String token) {
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8).split("\\|", 3);
+            return new ReorderCursor(Instant.parse(parts[0]).atOffset(ZoneOffset.UTC), Double.parseDouble(parts[1]),
+                    parts[2]);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid reorder cursor");
+        }
+    }
+
+    public String encode() {
+        String key = predictedReorderAt.toInstant() + "|" + confidence + "|" + sku;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(key.getBytes(StandardCharsets.UTF_8));
+    }
+
+    boolean precedes(ReorderPrediction prediction) {
+        int cmp = predictedReorderAt.compareTo(prediction.predictedReorderAt());
+        if (cmp != 0) {
+            return cmp < 0;
+        }
+        cmp = Double.compare(prediction.confidence(), confidence);
+        if (cmp != 0) {
+            return cmp < 0;
+        }
+        return sku.compareTo(prediction.sku()) < 0;
+    }
+}
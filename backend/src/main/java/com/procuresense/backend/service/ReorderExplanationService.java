@@ -3,7 +3,10 @@ package com.procuresense.backend.service;
 import com.procuresense.backend.model.ReorderInsight;
 import com.procuresense.backend.model.ReorderPrediction;
 import com.procuresense.backend.repository.ReorderInsightRepository;
+import com.procuresense.backend.service.ai.OpenAiCallExecutor;
 import com.procuresense.backend.service.ai.OpenAiClient;
+import com.procuresense.backend.service.ai.OpenAiRefreshQueue;
+import com.procuresense.backend.service.ai.ReorderExplanationPrompt;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 
@@ -11,7 +14,13 @@ import java.time.Clock;
 import java.time.Duration;
 import java.time.OffsetDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
@@ -22,13 +31,19 @@ public class ReorderExplanationService {
     private final OpenAiClient openAiClient;
     private final Clock clock;
     private final ReorderInsightRepository reorderInsightRepository;
+    private final OpenAiCallExecutor openAiCallExecutor;
+    private final OpenAiRefreshQueue refreshQueue;
 
     public ReorderExplanationService(OpenAiClient openAiClient,
                                      Clock clock,
-                                     ReorderInsightRepository reorderInsightRepository) {
+                                     ReorderInsightRepository reorderInsightRepository,
+                                     OpenAiCallExecutor openAiCallExecutor,
+                                     OpenAiRefreshQueue refreshQueue) {
         this.openAiClient = openAiClient;
         this.clock = clock;
         this.reorderInsightRepository = reorderInsightRepository;
+        this.openAiCallExecutor = openAiCallExecutor;
+        this.refreshQueue = refreshQueue;
     }
 
     public List<ReorderPrediction> enrich(List<ReorderPrediction> predictions) {
@@ -36,38 +51,97 @@ public class ReorderExplanationService {
     }
 
     public List<ReorderPrediction> enrich(List<ReorderPrediction> predictions, boolean cacheOnly) {
-        return predictions.stream()
-                .map(prediction -> attachExplanation(prediction, cacheOnly))
-                .collect(Collectors.toList());
+        Map<String, ReorderInsight> cached = loadCachedInsights(predictions);
+        boolean fallbackOnly = cacheOnly || openAiClient.isCircuitOpen();
+        List<ReorderPrediction> enriched = new ArrayList<>(predictions.size());
+        List<Integer> misses = new ArrayList<>();
+        for (ReorderPrediction prediction : predictions) {
+            String explanation = cachedExplanation(prediction, cached);
+            if (explanation == null && fallbackOnly) {
+                explanation = fallbackExplanation(prediction, calculateDaysUntil(prediction.predictedReorderAt()));
+            }
+            if (explanation == null) {
+                misses.add(enriched.size());
+            }
+            enriched.add(explanation != null ? prediction.withExplanation(explanation) : prediction);
+        }
+        if (misses.isEmpty()) {
+            return enriched;
+        }
+        List<ReorderPrediction> stale = misses.stream().map(enriched::get).toList();
+        if (refreshQueue.isEnabled()) {
+            for (int index : misses) {
+                ReorderPrediction prediction = enriched.get(index);
+                enriched.set(index, prediction.withExplanation(previousExplanation(prediction, cached)));
+            }
+            refreshQueue.submit(stale, prediction -> "reorder|" + key(prediction.orgId(), prediction.sku()),
+                    this::regenerate);
+            return enriched;
+        }
+        List<String> explanations = regenerate(stale);
+        for (int i = 0; i < misses.size(); i++) {
+            enriched.set(misses.get(i), stale.get(i).withExplanation(explanations.get(i)));
+        }
+        return enriched;
+    }
+
+    private List<String> regenerate(List<ReorderPrediction> stale) {
+        List<ReorderExplanationPrompt> prompts = stale.stream()
+                .map(prediction -> new ReorderExplanationPrompt(prediction,
+                        calculateDaysUntil(prediction.predictedReorderAt())))
+                .toList();
+        List<Optional<String>> generated = openAiCallExecutor.mapInBatches(prompts,
+                openAiClient::generateReorderExplanations);
+        List<String> explanations = new ArrayList<>(prompts.size());
+        Map<String, ReorderInsight> insights = new LinkedHashMap<>();
+        for (int i = 0; i < prompts.size(); i++) {
+            ReorderExplanationPrompt prompt = prompts.get(i);
+            ReorderPrediction prediction = prompt.prediction();
+            Optional<String> answer = generated.get(i);
+            String explanation = answer != null && answer.isPresent()
+                    ? answer.get()
+                    : fallbackExplanation(prediction, prompt.daysUntil());
+            if (answer != null) {
+                insights.put(key(prediction.orgId(), prediction.sku()),
+                        toInsight(prediction, explanation, fingerprint(prediction)));
+            }
+            explanations.add(explanation);
+        }
+        if (!insights.isEmpty()) {
+            reorderInsightRepository.upsertAll(insights.values());
+        }
+        return explanations;
     }
 
-    private ReorderPrediction attachExplanation(ReorderPrediction prediction, boolean cacheOnly) {
-        long daysUntil = calculateDaysUntil(prediction.predictedReorderAt());
-        String fingerprint = fingerprint(prediction);
-        String cached = lookupCachedExplanation(prediction, fingerprint);
-        if (StringUtils.hasText(cached)) {
-            return prediction.withExplanation(cached);
+    private String previousExplanation(ReorderPrediction prediction, Map<String, ReorderInsight> cached) {
+        ReorderInsight insight = cached.get(key(prediction.orgId(), prediction.sku()));
+        if (insight != null && StringUtils.hasText(insight.getExplanationText())) {
+            return insight.getExplanationText();
         }
-        String fallback = fallbackExplanation(prediction, daysUntil);
-        if (cacheOnly) {
-            return prediction.withExplanation(fallback);
+        return fallbackExplanation(prediction, calculateDaysUntil(prediction.predictedReorderAt()));
+    }
+
+    private String cachedExplanation(ReorderPrediction prediction, Map<String, ReorderInsight> cached) {
+        ReorderInsight insight = cached.get(key(prediction.orgId(), prediction.sku()));
+        if (insight != null && fingerprint(prediction).equals(insight.getFingerprint())
+                && StringUtils.hasText(insight.getExplanationText())) {
+            return insight.getExplanationText();
         }
-        String explanation = openAiClient.generateReorderExplanation(prediction, daysUntil)
-                .orElse(fallback);
-        persistInsight(prediction, explanation, fingerprint);
-        return prediction.withExplanation(explanation);
+        return null;
     }
 
-    private String lookupCachedExplanation(ReorderPrediction prediction, String fingerprint) {
-        return reorderInsightRepository.findByOrgIdAndSku(prediction.orgId(), prediction.sku())
-                .filter(insight -> fingerprint.equals(insight.getFingerprint()))
-                .map(ReorderInsight::getExplanationText)
-                .orElse(null);
+    private Map<String, ReorderInsight> loadCachedInsights(List<ReorderPrediction> predictions) {
+        Map<String, Set<String>> skusByOrg = predictions.stream()
+                .collect(Collectors.groupingBy(ReorderPrediction::orgId, Collectors.mapping(ReorderPrediction::sku,
+                        Collectors.toSet())));
+        Map<String, ReorderInsight> cached = new HashMap<>();
+        skusByOrg.forEach((orgId, skus) -> reorderInsightRepository.findByOrgIdAndSkuIn(orgId, skus)
+                .forEach(insight -> cached.put(key(insight.getOrgId(), insight.getSku()), insight)));
+        return cached;
     }
 
-    private void persistInsight(ReorderPrediction prediction, String explanation, String fingerprint) {
-        ReorderInsight insight = reorderInsightRepository.findByOrgIdAndSku(prediction.orgId(), prediction.sku())
-                .orElseGet(ReorderInsight::new);
+    private ReorderInsight toInsight(ReorderPrediction prediction, String explanation, String fingerprint) {
+        ReorderInsight insight = new ReorderInsight();
         insight.setOrgId(prediction.orgId());
         insight.setSku(prediction.sku());
         insight.setLastPurchaseAt(prediction.lastPurchaseAt());
@@ -76,7 +150,11 @@ public class ReorderExplanationService {
         insight.setConfidence(prediction.confidence());
         insight.setExplanationText(explanation);
         insight.setFingerprint(fingerprint);
-        reorderInsightRepository.save(insight);
+        return insight;
+    }
+
+    private static String key(String orgId, String sku) {
+        return orgId + "|" + sku;
     }
 
     private long calculateDaysUntil(OffsetDateTime predicted) {
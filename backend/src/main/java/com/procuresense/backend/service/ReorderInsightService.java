@@ -1,101 +1,310 @@
 package com.procuresense.backend.service;
 
-import com.procuresense.backend.model.Product;
-import com.procuresense.backend.model.Purchase;
+import com.procuresense.backend.config.ReorderProperties;
+import com.procuresense.backend.model.PurchaseHistoryRow;
+import com.procuresense.backend.model.ReorderPage;
 import com.procuresense.backend.model.ReorderPrediction;
+import com.procuresense.backend.model.SkuCadence;
 import com.procuresense.backend.repository.PurchaseRepository;
+import jakarta.annotation.PreDestroy;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.util.StringUtils;
 
+import java.time.Clock;
 import java.time.Duration;
 import java.time.OffsetDateTime;
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.LinkedHashMap;
+import java.util.Comparator;
+import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.PriorityQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.stream.Stream;
 
 @Service
 public class ReorderInsightService {
 
+    private static final Comparator<ReorderPrediction> PREDICTION_ORDER = (a, b) -> {
+        int cmp = a.predictedReorderAt().compareTo(b.predictedReorderAt());
+        if (cmp != 0) {
+            return cmp;
+        }
+        cmp = Double.compare(b.confidence(), a.confidence());
+        return cmp != 0 ? cmp : a.sku().compareTo(b.sku());
+    };
+
+    private static final int UNBOUNDED = Integer.MAX_VALUE;
+    private static final int PARTITIONS_PER_THREAD = 4;
+
     private final PurchaseRepository purchaseRepository;
+    private final ReorderStatsService reorderStatsService;
+    private final ReorderProperties.Engine engine;
+    private final Duration lookback;
+    private final int parallelism;
+    private final int parallelThreshold;
+    private final ForkJoinPool pool;
+    private final TransactionTemplate readOnlyTransaction;
+    private final Clock clock;
+    private final ReorderPredictionCache predictionCache;
 
-    public ReorderInsightService(PurchaseRepository purchaseRepository) {
+    public ReorderInsightService(PurchaseRepository purchaseRepository,
+                                 ReorderStatsService reorderStatsService,
+                                 ReorderProperties properties,
+                                 PlatformTransactionManager transactionManager,
+                                 Clock clock,
+                                 ReorderPredictionCache predictionCache) {
         this.purchaseRepository = purchaseRepository;
+        this.reorderStatsService = reorderStatsService;
+        this.engine = properties.engine();
+        this.lookback = properties.lookback();
+        this.parallelism = properties.parallelism();
+        this.parallelThreshold = properties.parallelThreshold();
+        this.pool = parallelism > 1 ? new ForkJoinPool(parallelism) : null;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.clock = clock;
+        this.predictionCache = predictionCache;
     }
 
     public List<ReorderPrediction> computePredictions(String orgId) {
         if (!StringUtils.hasText(orgId)) {
             return List.of();
         }
-        List<Purchase> purchases = purchaseRepository.findByOrgIdOrderByProductSkuAscPurchasedAtAsc(orgId);
-        Map<String, List<Purchase>> bySku = purchases.stream()
-                .collect(Collectors.groupingBy(p -> p.getProduct().getSku(), LinkedHashMap::new, Collectors.toList()));
+        OffsetDateTime since = windowStart(null);
+        return since == null ? cachedPredictions(orgId) : predictions(orgId, null, UNBOUNDED, since);
+    }
+
+    public ReorderPage findPredictions(String orgId, int limit, String cursor) {
+        return findPredictions(orgId, limit, cursor, null);
+    }
+
+    // a limit of zero or less returns the rest in one page; lookbackDays overrides reorder.lookback
+    public ReorderPage findPredictions(String orgId, int limit, String cursor, Integer lookbackDays) {
+        if (lookbackDays != null && lookbackDays <= 0) {
+            throw new IllegalArgumentException("lookbackDays must be positive");
+        }
+        if (!StringUtils.hasText(orgId)) {
+            return new ReorderPage(List.of(), null);
+        }
+        ReorderCursor after = StringUtils.hasText(cursor) ? ReorderCursor.decode(cursor) : null;
+        OffsetDateTime since = windowStart(lookbackDays == null ? null : Duration.ofDays(lookbackDays));
+        if (since == null) {
+            return page(cachedPredictions(orgId), after, limit);
+        }
+        if (limit <= 0) {
+            return new ReorderPage(predictions(orgId, after, UNBOUNDED, since), null);
+        }
+        int fetch = limit + 1;
+        List<ReorderPrediction> selected = predictions(orgId, after, fetch, since);
+        if (selected.size() <= limit) {
+            return new ReorderPage(selected, null);
+        }
+        List<ReorderPrediction> page = selected.subList(0, limit);
+        return new ReorderPage(page, ReorderCursor.after(page.get(limit - 1)).encode());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (pool != null) {
+            pool.shutdownNow();
+        }
+    }
+
+    // a window moves with the clock, so only full-history reads go through the cache
+    private List<ReorderPrediction> cachedPredictions(String orgId) {
+        return predictionCache.get(orgId, () -> predictions(orgId, null, UNBOUNDED, null));
+    }
+
+    private static ReorderPage page(List<ReorderPrediction> sorted, ReorderCursor after, int limit) {
+        int from = after == null ? 0 : firstAfter(sorted, after);
+        if (limit <= 0) {
+            return new ReorderPage(sorted.subList(from, sorted.size()), null);
+        }
+        int to = Math.min(sorted.size(), from + limit);
+        List<ReorderPrediction> page = sorted.subList(from, to);
+        String nextCursor = to < sorted.size() ? ReorderCursor.after(page.get(page.size() - 1)).encode() : null;
+        return new ReorderPage(page, nextCursor);
+    }
+
+    private static int firstAfter(List<ReorderPrediction> sorted, ReorderCursor after) {
+        int low = 0;
+        int high = sorted.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (after.precedes(sorted.get(mid))) {
+                high = mid;
+            } else {
+                low = mid + 1;
+            }
+        }
+        return low;
+    }
+
+    private List<ReorderPrediction> predictions(String orgId, ReorderCursor after, int k, OffsetDateTime since) {
+        // the stats rows summarise the whole history, so a windowed read is aggregated in the database instead
+        if (engine == ReorderProperties.Engine.STATS && since == null) {
+            return reorderStatsService.findPredictions(orgId, after, k == UNBOUNDED ? Limit.unlimited() : Limit.of(k));
+        }
+        return select(orgId, after, k, since);
+    }
+
+    private OffsetDateTime windowStart(Duration requested) {
+        Duration window = requested != null ? requested : lookback;
+        return window == null ? null : OffsetDateTime.now(clock).minus(window);
+    }
+
+    private List<ReorderPrediction> select(String orgId, ReorderCursor after, int k, OffsetDateTime since) {
+        if (engine == ReorderProperties.Engine.JAVA) {
+            return selectFromHistory(orgId, after, k, since);
+        }
+        List<SkuCadence> cadences = purchaseRepository.findSkuCadences(orgId, since);
+        int size = cadences.size();
+        if (pool == null || size < parallelThreshold) {
+            return selectRange(orgId, cadences, 0, size, after, k);
+        }
+        int partitions = Math.min(size, parallelism * PARTITIONS_PER_THREAD);
+        List<ForkJoinTask<List<ReorderPrediction>>> tasks = new ArrayList<>(partitions);
+        try {
+            for (int partition = 0; partition < partitions; partition++) {
+                int from = (int) ((long) size * partition / partitions);
+                int to = (int) ((long) size * (partition + 1) / partitions);
+                tasks.add(pool.submit(() -> selectRange(orgId, cadences, from, to, after, k)));
+            }
+            List<List<ReorderPrediction>> runs = new ArrayList<>(partitions);
+            for (ForkJoinTask<List<ReorderPrediction>> task : tasks) {
+                runs.add(task.join());
+            }
+            return merge(runs, k);
+        } finally {
+            tasks.forEach(task -> task.cancel(true));
+        }
+    }
 
-        List<ReorderPrediction> predictions = new ArrayList<>();
-        for (Map.Entry<String, List<Purchase>> entry : bySku.entrySet()) {
-            List<Purchase> skuPurchases = entry.getValue();
-            if (skuPurchases.size() < 2) {
-                continue;
+    private static List<ReorderPrediction> selectRange(String orgId, List<SkuCadence> cadences, int from, int to,
+                                                       ReorderCursor after, int k) {
+        Selection selection = new Selection(after, k);
+        for (int i = from; i < to; i++) {
+            selection.offer(fromCadence(orgId, cadences.get(i)));
+        }
+        return selection.sorted();
+    }
+
+    private static List<ReorderPrediction> merge(List<List<ReorderPrediction>> runs, int k) {
+        PriorityQueue<RunCursor> heads = new PriorityQueue<>(runs.size(),
+                (a, b) -> PREDICTION_ORDER.compare(a.current(), b.current()));
+        int total = 0;
+        for (List<ReorderPrediction> run : runs) {
+            if (!run.isEmpty()) {
+                heads.add(new RunCursor(run, 0));
+                total += run.size();
             }
-            skuPurchases.sort((a, b) -> a.getPurchasedAt().compareTo(b.getPurchasedAt()));
-            List<Long> intervals = computeIntervals(skuPurchases);
-            if (intervals.isEmpty()) {
-                continue;
+        }
+        List<ReorderPrediction> merged = new ArrayList<>(Math.min(total, k));
+        while (merged.size() < k && !heads.isEmpty()) {
+            RunCursor head = heads.poll();
+            merged.add(head.current());
+            if (head.position() + 1 < head.run().size()) {
+                heads.add(new RunCursor(head.run(), head.position() + 1));
             }
-            long medianDays = median(intervals);
-            Purchase mostRecent = skuPurchases.get(skuPurchases.size() - 1);
-            OffsetDateTime lastPurchase = mostRecent.getPurchasedAt();
-            OffsetDateTime predictedReorder = lastPurchase.plusDays(medianDays);
-            double confidence = computeConfidence(intervals);
-            Product product = skuPurchases.get(0).getProduct();
-            predictions.add(new ReorderPrediction(orgId, product.getSku(), product.getName(), lastPurchase,
-                    medianDays, predictedReorder, confidence, mostRecent.getQuantity(), null));
-        }
-        predictions.sort((a, b) -> {
-            int cmp = a.predictedReorderAt().compareTo(b.predictedReorderAt());
-            if (cmp != 0) {
-                return cmp;
+        }
+        return merged;
+    }
+
+    // each SKU's purchases arrive contiguously, so only the current SKU is held while the history streams
+    private List<ReorderPrediction> selectFromHistory(String orgId, ReorderCursor after, int k,
+                                                      OffsetDateTime since) {
+        Selection selection = new Selection(after, k);
+        readOnlyTransaction.executeWithoutResult(status -> {
+            try (Stream<PurchaseHistoryRow> history = since == null
+                    ? purchaseRepository.streamPurchaseHistory(orgId)
+                    : purchaseRepository.streamPurchaseHistorySince(orgId, since)) {
+                CadenceAccumulator cadence = new CadenceAccumulator();
+                PurchaseHistoryRow previous = null;
+                int purchases = 0;
+                for (Iterator<PurchaseHistoryRow> rows = history.iterator(); rows.hasNext(); ) {
+                    PurchaseHistoryRow row = rows.next();
+                    if (previous != null && !previous.sku().equals(row.sku())) {
+                        selection.offer(predict(orgId, previous, purchases, cadence));
+                        purchases = 0;
+                    }
+                    if (purchases == 0) {
+                        cadence.reset();
+                    }
+                    cadence.addPurchase(row.purchasedAt());
+                    purchases++;
+                    previous = row;
+                }
+                if (previous != null) {
+                    selection.offer(predict(orgId, previous, purchases, cadence));
+                }
             }
-            return Double.compare(b.confidence(), a.confidence());
         });
-        return predictions;
+        return selection.sorted();
     }
 
-    private List<Long> computeIntervals(List<Purchase> purchases) {
-        List<Long> intervals = new ArrayList<>();
-        for (int i = 1; i < purchases.size(); i++) {
-            OffsetDateTime previous = purchases.get(i - 1).getPurchasedAt();
-            OffsetDateTime current = purchases.get(i).getPurchasedAt();
-            long days = Math.max(1, Duration.between(previous, current).toDays());
-            intervals.add(days);
+    private static ReorderPrediction fromCadence(String orgId, SkuCadence cadence) {
+        long medianDays = ReorderCadence.roundMedian(cadence.medianIntervalDays());
+        double confidence = ReorderCadence.confidence(cadence.minIntervalDays(), cadence.maxIntervalDays(),
+                cadence.intervalCount());
+        return new ReorderPrediction(orgId, cadence.sku(), cadence.productName(), cadence.lastPurchaseAt(),
+                medianDays, cadence.lastPurchaseAt().plusDays(medianDays), confidence, cadence.lastQuantity(), null);
+    }
+
+    private static ReorderPrediction predict(String orgId, PurchaseHistoryRow mostRecent, int purchases,
+                                             CadenceAccumulator cadence) {
+        if (purchases < 2) {
+            return null;
         }
-        return intervals;
+        long medianDays = cadence.medianDays();
+        OffsetDateTime lastPurchase = mostRecent.purchasedAt();
+        return new ReorderPrediction(orgId, mostRecent.sku(), mostRecent.productName(), lastPurchase, medianDays,
+                lastPurchase.plusDays(medianDays), cadence.confidence(), mostRecent.quantity(), null);
     }
 
-    private long median(List<Long> intervals) {
-        List<Long> sorted = new ArrayList<>(intervals);
-        Collections.sort(sorted);
-        int size = sorted.size();
-        if (size % 2 == 1) {
-            return sorted.get(size / 2);
+    private static final class Selection {
+        private final ReorderCursor after;
+        private final int k;
+        private final List<ReorderPrediction> all;
+        private final PriorityQueue<ReorderPrediction> heap;
+
+        private Selection(ReorderCursor after, int k) {
+            this.after = after;
+            this.k = k;
+            this.all = k == UNBOUNDED ? new ArrayList<>() : null;
+            this.heap = k == UNBOUNDED ? null : new PriorityQueue<>(k + 1, PREDICTION_ORDER.reversed());
+        }
+
+        private void offer(ReorderPrediction prediction) {
+            if (prediction == null || (after != null && !after.precedes(prediction))) {
+                return;
+            }
+            if (all != null) {
+                all.add(prediction);
+                return;
+            }
+            if (heap.size() == k && PREDICTION_ORDER.compare(prediction, heap.peek()) >= 0) {
+                return;
+            }
+            heap.offer(prediction);
+            if (heap.size() > k) {
+                heap.poll();
+            }
+        }
+
+        private List<ReorderPrediction> sorted() {
+            List<ReorderPrediction> selected = all != null ? all : new ArrayList<>(heap);
+            selected.sort(PREDICTION_ORDER);
+            return selected;
         }
-        long lower = sorted.get((size / 2) - 1);
-        long upper = sorted.get(size / 2);
-        return Math.round((lower + upper) / 2.0);
     }
 
-    private double computeConfidence(List<Long> intervals) {
-        if (intervals.isEmpty()) {
-            return 0.0;
+    private record RunCursor(List<ReorderPrediction> run, int position) {
+        private ReorderPrediction current() {
+            return run.get(position);
         }
-        long min = Collections.min(intervals);
-        long max = Collections.max(intervals);
-        double variability = max == 0 ? 0 : (double) (max - min) / max;
-        double coverage = Math.min(1.0, intervals.size() / 4.0);
-        double stability = 1.0 - Math.min(1.0, variability);
-        double confidence = 0.4 * coverage + 0.6 * stability;
-        return Math.round(confidence * 100.0) / 100.0;
     }
 }
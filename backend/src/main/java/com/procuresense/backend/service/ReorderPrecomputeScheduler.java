@@ -0,0 +1,92 @@
+package com.procuresense.backend.service;
+
+import com.procuresense.backend.config.ReorderProperties;
+import com.procuresense.backend.repository.ReorderStatsStateRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// each pass waits for its rebuilds before the next is scheduled, so an org is never rebuilt twice at once
+@Component
+public class ReorderPrecomputeScheduler {
+
+    private static final Logger log = LoggerFactory.getLogger(ReorderPrecomputeScheduler.class);
+
+    private final ReorderStatsService reorderStatsService;
+    private final ReorderStatsStateRepository stateRepository;
+    private final ExecutorService executor;
+
+    public ReorderPrecomputeScheduler(ReorderStatsService reorderStatsService,
+                                      ReorderStatsStateRepository stateRepository,
+                                      ReorderProperties properties) {
+        this.reorderStatsService = reorderStatsService;
+        this.stateRepository = stateRepository;
+        boolean enabled = properties.precompute().enabled() && properties.engine() == ReorderProperties.Engine.STATS;
+        this.executor = enabled
+                ? Executors.newFixedThreadPool(properties.precompute().workers(), workerThreads())
+                : null;
+    }
+
+    @Scheduled(initialDelayString = "${reorder.precompute.interval:PT1M}",
+            fixedDelayString = "${reorder.precompute.interval:PT1M}")
+    public void precompute() {
+        if (executor != null) {
+            refreshStaleOrgs();
+        }
+    }
+
+    public int refreshStaleOrgs() {
+        if (executor == null) {
+            return 0;
+        }
+        List<String> stale = stateRepository.findStaleOrgIds();
+        List<Future<?>> rebuilds = new ArrayList<>(stale.size());
+        for (String orgId : stale) {
+            rebuilds.add(executor.submit(() -> reorderStatsService.rebuild(orgId)));
+        }
+        int rebuilt = 0;
+        for (int i = 0; i < rebuilds.size(); i++) {
+            try {
+                rebuilds.get(i).get();
+                rebuilt++;
+            } catch (ExecutionException e) {
+                log.warn("Failed to precompute reorder statistics for org {}", stale.get(i), e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                rebuilds.forEach(rebuild -> rebuild.cancel(true));
+                break;
+            }
+        }
+        if (rebuilt > 0) {
+            log.info("Precomputed reorder statistics for {} orgs", rebuilt);
+        }
+        return rebuilt;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    private static ThreadFactory workerThreads() {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "reorder-precompute-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,95 @@
+package com.procuresense.backend.service;
+
+import com.procuresense.backend.config.ReorderProperties;
+import com.procuresense.backend.model.ReorderPrediction;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.OffsetDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Supplier;
+
+// Entries are stamped with the purchase_load_audit version and a catalog generation, so a list computed
+// before a load or a product rename is never served, even when it is put back after an invalidation.
+@Component
+public class ReorderPredictionCache {
+
+    private final PurchaseLoadAuditService purchaseLoadAuditService;
+    private final Map<String, Entry> entries;
+    // guarded by entries
+    private long catalogGeneration;
+
+    @Autowired
+    public ReorderPredictionCache(PurchaseLoadAuditService purchaseLoadAuditService, ReorderProperties properties) {
+        this(purchaseLoadAuditService, properties.cache().maxOrgs());
+    }
+
+    public ReorderPredictionCache(PurchaseLoadAuditService purchaseLoadAuditService, int maxOrgs) {
+        this.purchaseLoadAuditService = purchaseLoadAuditService;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > maxOrgs;
+            }
+        };
+    }
+
+    // compute must return the org's predictions sorted in serving order
+    public List<ReorderPrediction> get(String orgId, Supplier<List<ReorderPrediction>> compute) {
+        // read before computing, so rows loaded meanwhile leave the entry behind the next version
+        OffsetDateTime version = purchaseLoadAuditService.getLastLoadedAt(orgId);
+        if (version == null) {
+            return compute.get();
+        }
+        long generation;
+        synchronized (entries) {
+            Entry entry = entries.get(orgId);
+            if (entry != null && entry.version().isEqual(version)) {
+                return entry.predictions();
+            }
+            generation = catalogGeneration;
+        }
+        List<ReorderPrediction> predictions = List.copyOf(compute.get());
+        synchronized (entries) {
+            Entry current = entries.get(orgId);
+            if (generation == catalogGeneration && (current == null || !current.version().isAfter(version))) {
+                entries.put(orgId, new Entry(version, predictions));
+            }
+        }
+        return predictions;
+    }
+
+    public void invalidate(String orgId) {
+        synchronized (entries) {
+            entries.remove(Objects.requireNonNull(orgId));
+        }
+    }
+
+    // inside a transaction it runs again after commit, catching lists computed from the old names meanwhile
+    public void invalidateAll() {
+        clear();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    clear();
+                }
+            });
+        }
+    }
+
+    private void clear() {
+        synchronized (entries) {
+            entries.clear();
+            catalogGeneration++;
+        }
+    }
+
+    private record Entry(OffsetDateTime version, List<ReorderPrediction> predictions) {
+    }
+}
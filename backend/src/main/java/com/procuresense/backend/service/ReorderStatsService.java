@@ -0,0 +1,253 @@
+package com.procuresense.backend.service;
+
+import com.procuresense.backend.model.PurchaseHistoryRow;
+import com.procuresense.backend.model.ReorderPrediction;
+import com.procuresense.backend.model.ReorderSkuStats;
+import com.procuresense.backend.model.ReorderStatsState;
+import com.procuresense.backend.repository.PurchaseRepository;
+import com.procuresense.backend.repository.ReorderSkuStatsRepository;
+import com.procuresense.backend.repository.ReorderStatsStateRepository;
+import com.procuresense.backend.service.ingest.PurchaseRow;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+// One cadence row per (org, sku), merged by imports in the purchases' transaction; an org whose state row
+// is missing or pending is built from its history on first read.
+@Service
+public class ReorderStatsService {
+
+    private static final Logger log = LoggerFactory.getLogger(ReorderStatsService.class);
+    private static final long MICROS_PER_DAY = 86_400_000_000L;
+
+    private final ReorderSkuStatsRepository statsRepository;
+    private final ReorderStatsStateRepository stateRepository;
+    private final PurchaseRepository purchaseRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Clock clock;
+
+    public ReorderStatsService(ReorderSkuStatsRepository statsRepository,
+                               ReorderStatsStateRepository stateRepository,
+                               PurchaseRepository purchaseRepository,
+                               PlatformTransactionManager transactionManager,
+                               Clock clock) {
+        this.statsRepository = statsRepository;
+        this.stateRepository = stateRepository;
+        this.purchaseRepository = purchaseRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.clock = clock;
+    }
+
+    public List<ReorderPrediction> findPredictions(String orgId, ReorderCursor after, Limit limit) {
+        if (!stateRepository.existsByOrgIdAndBuiltAtIsNotNull(orgId)) {
+            transactionTemplate.executeWithoutResult(status -> {
+                // a concurrent request may have built the org while this one waited for the lock
+                ReorderStatsState state = lockState(orgId);
+                if (state.getBuiltAt() == null) {
+                    build(state);
+                }
+            });
+        }
+        if (after == null) {
+            return statsRepository.findPredictions(orgId, limit);
+        }
+        return statsRepository.findPredictionsAfter(orgId, after.predictedReorderAt(), after.confidence(), after.sku(),
+                limit);
+    }
+
+    // must run in the transaction that inserted the rows
+    public void recordInserted(String orgId, List<PurchaseRow> rows) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        ReorderStatsState state = lockState(orgId);
+        if (state.getBuiltAt() == null) {
+            return;
+        }
+        Map<String, List<PurchaseRow>> bySku = new LinkedHashMap<>();
+        for (PurchaseRow row : rows) {
+            bySku.computeIfAbsent(row.sku(), sku -> new ArrayList<>()).add(row);
+        }
+        Map<String, ReorderSkuStats> existing = new HashMap<>();
+        for (ReorderSkuStats stats : statsRepository.findByOrgIdAndSkuIn(orgId, bySku.keySet())) {
+            existing.put(stats.getSku(), stats);
+        }
+        List<ReorderSkuStats> changed = new ArrayList<>(bySku.size());
+        Map<String, ReorderSkuStats> backfilled = new HashMap<>();
+        for (Map.Entry<String, List<PurchaseRow>> entry : bySku.entrySet()) {
+            ReorderSkuStats stats = existing.get(entry.getKey());
+            List<PurchaseRow> skuRows = entry.getValue();
+            skuRows.sort(Comparator.comparing(row -> row.purchasedAt().toInstant()));
+            if (stats == null) {
+                stats = new ReorderSkuStats(orgId, entry.getKey());
+                changed.add(append(new HistoryBuilder(stats.getSku()), skuRows).applyTo(stats));
+            } else if (skuRows.get(0).purchasedAt().toInstant().isBefore(stats.getLastPurchaseAt().toInstant())) {
+                backfilled.put(stats.getSku(), stats);
+            } else {
+                changed.add(append(HistoryBuilder.resume(stats), skuRows).applyTo(stats));
+            }
+        }
+        if (!backfilled.isEmpty()) {
+            changed.addAll(replay(orgId, backfilled));
+        }
+        statsRepository.saveAll(changed);
+        state.setBuiltAt(OffsetDateTime.now(clock));
+    }
+
+    // must run in the transaction that replaces the org's purchases; the next read rebuilds from scratch
+    public void reset(String orgId) {
+        statsRepository.deleteByOrgId(orgId);
+        stateRepository.deleteById(orgId);
+    }
+
+    public void rebuild(String orgId) {
+        transactionTemplate.executeWithoutResult(status -> build(lockState(orgId)));
+    }
+
+    // every writer of an org's rows locks its state row first; a never-built org gets a pending row so a
+    // rebuild waits for the import chunk that inserted it
+    private ReorderStatsState lockState(String orgId) {
+        stateRepository.insertPendingIfAbsent(orgId);
+        return stateRepository.findForUpdate(orgId).orElseThrow();
+    }
+
+    // caller holds the org's state lock
+    private void build(ReorderStatsState state) {
+        String orgId = state.getOrgId();
+        OffsetDateTime builtAt = OffsetDateTime.now(clock);
+        statsRepository.deleteByOrgId(orgId);
+        List<ReorderSkuStats> built = new ArrayList<>();
+        HistoryBuilder current = null;
+        try (Stream<PurchaseHistoryRow> history = purchaseRepository.streamPurchaseHistory(orgId)) {
+            Iterator<PurchaseHistoryRow> rows = history.iterator();
+            while (rows.hasNext()) {
+                PurchaseHistoryRow row = rows.next();
+                if (current == null || !current.sku.equals(row.sku())) {
+                    if (current != null) {
+                        built.add(current.applyTo(new ReorderSkuStats(orgId, current.sku)));
+                    }
+                    current = new HistoryBuilder(row.sku());
+                }
+                current.add(row.purchasedAt(), row.quantity());
+            }
+        }
+        if (current != null) {
+            built.add(current.applyTo(new ReorderSkuStats(orgId, current.sku)));
+        }
+        statsRepository.saveAll(built);
+        state.setBuiltAt(builtAt);
+        log.info("Built reorder statistics for {} SKUs of org {}", built.size(), orgId);
+    }
+
+    private static HistoryBuilder append(HistoryBuilder builder, List<PurchaseRow> sortedRows) {
+        for (PurchaseRow row : sortedRows) {
+            builder.add(row.purchasedAt(), row.quantity());
+        }
+        return builder;
+    }
+
+    // rows older than a SKU's last purchase split an unknown interval, so those SKUs are replayed
+    private List<ReorderSkuStats> replay(String orgId, Map<String, ReorderSkuStats> stats) {
+        List<ReorderSkuStats> replayed = new ArrayList<>(stats.size());
+        HistoryBuilder current = null;
+        try (Stream<PurchaseHistoryRow> history = purchaseRepository.streamPurchaseHistory(orgId, stats.keySet())) {
+            Iterator<PurchaseHistoryRow> rows = history.iterator();
+            while (rows.hasNext()) {
+                PurchaseHistoryRow row = rows.next();
+                if (current == null || !current.sku.equals(row.sku())) {
+                    if (current != null) {
+                        replayed.add(current.applyTo(stats.get(current.sku)));
+                    }
+                    current = new HistoryBuilder(row.sku());
+                }
+                current.add(row.purchasedAt(), row.quantity());
+            }
+        }
+        if (current != null) {
+            replayed.add(current.applyTo(stats.get(current.sku)));
+        }
+        return replayed;
+    }
+
+    private static long toMicros(OffsetDateTime timestamp) {
+        return ChronoUnit.MICROS.between(Instant.EPOCH, timestamp.toInstant());
+    }
+
+    private static final class HistoryBuilder {
+        private final String sku;
+        private final IntervalHistogram intervals;
+        private int count;
+        private long lastMicros;
+        private OffsetDateTime lastPurchaseAt;
+        private int lastQuantity;
+
+        private HistoryBuilder(String sku) {
+            this(sku, new IntervalHistogram());
+        }
+
+        private HistoryBuilder(String sku, IntervalHistogram intervals) {
+            this.sku = sku;
+            this.intervals = intervals;
+        }
+
+        private static HistoryBuilder resume(ReorderSkuStats stats) {
+            HistoryBuilder builder = new HistoryBuilder(stats.getSku(), IntervalHistogram.decode(stats.getIntervalHistogram()));
+            builder.count = stats.getPurchaseCount();
+            builder.lastPurchaseAt = stats.getLastPurchaseAt();
+            builder.lastMicros = toMicros(stats.getLastPurchaseAt());
+            builder.lastQuantity = stats.getLastQuantity();
+            return builder;
+        }
+
+        // the newest row wins ties, matching the (purchased_at, id) order of a rebuild
+        private void add(OffsetDateTime purchasedAt, int quantity) {
+            long micros = toMicros(purchasedAt);
+            if (count > 0) {
+                intervals.add(Math.max(1, (micros - lastMicros) / MICROS_PER_DAY));
+            }
+            count++;
+            lastMicros = micros;
+            lastPurchaseAt = purchasedAt.withOffsetSameInstant(ZoneOffset.UTC);
+            lastQuantity = quantity;
+        }
+
+        private ReorderSkuStats applyTo(ReorderSkuStats stats) {
+            stats.setPurchaseCount(count);
+            stats.setLastPurchaseAt(lastPurchaseAt);
+            stats.setLastQuantity(lastQuantity);
+            stats.setIntervalHistogram(intervals.encode());
+            if (intervals.intervalCount() == 0) {
+                stats.setMinIntervalDays(null);
+                stats.setMaxIntervalDays(null);
+                stats.setMedianDaysBetween(null);
+                stats.setConfidence(null);
+                stats.setPredictedReorderAt(null);
+                return stats;
+            }
+            long median = intervals.medianDays();
+            stats.setMinIntervalDays(intervals.minDays());
+            stats.setMaxIntervalDays(intervals.maxDays());
+            stats.setMedianDaysBetween(median);
+            stats.setConfidence(intervals.confidence());
+            stats.setPredictedReorderAt(lastPurchaseAt.plusDays(median));
+            return stats;
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package com.procuresense.backend.service.ai;
+
+public record BundleRationalePrompt(String sku,
+                                    String skuName,
+                                    String relatedSku,
+                                    String relatedName,
+                                    long coPurchaseCount) {
+}
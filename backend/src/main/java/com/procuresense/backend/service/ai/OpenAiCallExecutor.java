@@ -0,0 +1,85 @@
+package com.procuresense.backend.service.ai;
+
+import com.procuresense.backend.config.OpenAiProperties;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.function.Function;
+
+// the permits are shared by every caller, capping requests in flight against the provider
+@Component
+public class OpenAiCallExecutor {
+
+    private final ExecutorService executor = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("openai-call-", 1).factory());
+    private final Semaphore permits;
+    private final int batchSize;
+
+    @Autowired
+    public OpenAiCallExecutor(OpenAiProperties properties) {
+        this(properties.maxConcurrentRequests(), properties.batchSize());
+    }
+
+    public OpenAiCallExecutor(int maxConcurrentRequests, int batchSize) {
+        this.permits = new Semaphore(Math.max(1, maxConcurrentRequests), true);
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    // each batch call must return exactly one result per item; results come back in item order
+    public <T, R> List<R> mapInBatches(List<T> items, Function<List<T>, List<R>> batchCall) {
+        List<List<T>> batches = new ArrayList<>((items.size() + batchSize - 1) / batchSize);
+        for (int from = 0; from < items.size(); from += batchSize) {
+            batches.add(items.subList(from, Math.min(items.size(), from + batchSize)));
+        }
+        List<R> results = new ArrayList<>(items.size());
+        mapInOrder(batches, batchCall).forEach(results::addAll);
+        return results;
+    }
+
+    public <T, R> List<R> mapInOrder(List<T> items, Function<? super T, ? extends R> call) {
+        if (items.isEmpty()) {
+            return List.of();
+        }
+        List<Future<R>> futures = new ArrayList<>(items.size());
+        try {
+            for (T item : items) {
+                futures.add(executor.submit(() -> {
+                    permits.acquire();
+                    try {
+                        return call.apply(item);
+                    } finally {
+                        permits.release();
+                    }
+                }));
+            }
+            List<R> results = new ArrayList<>(items.size());
+            for (Future<R> future : futures) {
+                results.add(future.get());
+            }
+            return results;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for OpenAI calls", ex);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException("OpenAI call failed", ex.getCause());
+        } finally {
+            futures.forEach(future -> future.cancel(true));
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
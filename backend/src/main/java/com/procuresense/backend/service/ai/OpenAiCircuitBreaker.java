@@ -0,0 +1,142 @@
+package com.procuresense.backend.service.ai;
+
+import com.procuresense.backend.config.OpenAiProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.function.LongSupplier;
+
+// count-based breaker; after the open period a single trial call decides whether it closes again
+@Component
+public class OpenAiCircuitBreaker {
+
+    private static final Logger log = LoggerFactory.getLogger(OpenAiCircuitBreaker.class);
+
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    private final int minimumCalls;
+    private final double failureRateThreshold;
+    private final double slowCallRateThreshold;
+    private final long slowCallNanos;
+    private final long openNanos;
+    private final LongSupplier nanoTime;
+    private final boolean[] failedCalls;
+    private final boolean[] slowCalls;
+    private int next;
+    private int recorded;
+    private int failures;
+    private int slow;
+    private State state = State.CLOSED;
+    private long openedAt;
+    private boolean trialInFlight;
+
+    @Autowired
+    public OpenAiCircuitBreaker(OpenAiProperties properties) {
+        this(properties.circuitBreaker(), System::nanoTime);
+    }
+
+    OpenAiCircuitBreaker(OpenAiProperties.CircuitBreaker settings, LongSupplier nanoTime) {
+        this.minimumCalls = settings.minimumCalls();
+        this.failureRateThreshold = settings.failureRateThreshold();
+        this.slowCallRateThreshold = settings.slowCallRateThreshold();
+        this.slowCallNanos = settings.slowCallDuration().toNanos();
+        this.openNanos = settings.openDuration().toNanos();
+        this.nanoTime = nanoTime;
+        this.failedCalls = new boolean[settings.windowSize()];
+        this.slowCalls = new boolean[settings.windowSize()];
+    }
+
+    // every granted call must be followed by exactly one of onSuccess, onFailure or onIgnored
+    public synchronized boolean tryAcquire() {
+        if (state == State.OPEN) {
+            if (nanoTime.getAsLong() - openedAt < openNanos) {
+                return false;
+            }
+            state = State.HALF_OPEN;
+        }
+        if (state == State.HALF_OPEN) {
+            if (trialInFlight) {
+                return false;
+            }
+            trialInFlight = true;
+        }
+        return true;
+    }
+
+    public synchronized boolean isOpen() {
+        return state == State.OPEN && nanoTime.getAsLong() - openedAt < openNanos;
+    }
+
+    public synchronized State state() {
+        return state;
+    }
+
+    public synchronized void onSuccess(long elapsedNanos) {
+        record(false, elapsedNanos >= slowCallNanos);
+    }
+
+    public synchronized void onFailure(long elapsedNanos) {
+        record(true, elapsedNanos >= slowCallNanos);
+    }
+
+    // the call neither proves nor disproves upstream health, e.g. it was throttled
+    public synchronized void onIgnored() {
+        if (state == State.HALF_OPEN) {
+            trialInFlight = false;
+        }
+    }
+
+    private void record(boolean failed, boolean slowCall) {
+        if (state == State.HALF_OPEN) {
+            if (failed || slowCall) {
+                open();
+            } else {
+                close();
+            }
+            return;
+        }
+        if (state == State.OPEN) {
+            // started before the breaker tripped
+            return;
+        }
+        if (recorded == failedCalls.length) {
+            failures -= failedCalls[next] ? 1 : 0;
+            slow -= slowCalls[next] ? 1 : 0;
+        } else {
+            recorded++;
+        }
+        failedCalls[next] = failed;
+        slowCalls[next] = slowCall;
+        failures += failed ? 1 : 0;
+        slow += slowCall ? 1 : 0;
+        next = (next + 1) % failedCalls.length;
+        if (recorded >= minimumCalls
+                && (failures >= failureRateThreshold * recorded || slow >= slowCallRateThreshold * recorded)) {
+            log.warn("OpenAI circuit opened after {} failed and {} slow of the last {} calls", failures, slow,
+                    recorded);
+            open();
+        }
+    }
+
+    private void open() {
+        state = State.OPEN;
+        openedAt = nanoTime.getAsLong();
+        trialInFlight = false;
+    }
+
+    private void close() {
+        log.info("OpenAI circuit closed after a successful trial call");
+        state = State.CLOSED;
+        trialInFlight = false;
+        next = 0;
+        recorded = 0;
+        failures = 0;
+        slow = 0;
+    }
+}
@@ -1,5 +1,6 @@
 package com.procuresense.backend.service.ai;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.procuresense.backend.config.OpenAiProperties;
@@ -13,10 +14,13 @@ import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
+import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestClient;
 import org.springframework.web.client.RestClientException;
 
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -28,25 +32,46 @@ public class OpenAiClient {
     private static final Logger log = LoggerFactory.getLogger(OpenAiClient.class);
     private static final String RESPONSES_PATH = "/responses";
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ISO_LOCAL_DATE;
+    private static final String REORDER_SYSTEM_PROMPT =
+            "You are a procurement copilot that explains reorder recommendations.";
+    private static final String BUNDLE_SYSTEM_PROMPT = "You explain why two SKUs are often ordered together.";
 
     private final OpenAiProperties properties;
     private final RestClient restClient;
+    private final RestClient assistantRestClient;
     private final ObjectMapper objectMapper;
+    private final OpenAiTransportMetrics metrics;
+    private final OpenAiCircuitBreaker circuitBreaker;
+    private final OpenAiRateLimiter rateLimiter;
 
     public OpenAiClient(OpenAiProperties properties,
                         RestClient.Builder restClientBuilder,
-                        ObjectMapper objectMapper) {
+                        ObjectMapper objectMapper,
+                        OpenAiHttpTransport transport,
+                        OpenAiTransportMetrics metrics,
+                        OpenAiCircuitBreaker circuitBreaker,
+                        OpenAiRateLimiter rateLimiter) {
         this.properties = properties;
         this.objectMapper = objectMapper;
+        this.metrics = metrics;
+        this.circuitBreaker = circuitBreaker;
+        this.rateLimiter = rateLimiter;
         if (properties.isConfigured()) {
-            this.restClient = restClientBuilder
+            RestClient.Builder builder = restClientBuilder.clone()
                     .baseUrl(properties.baseUrl())
                     .defaultHeader(HttpHeaders.AUTHORIZATION, "Bearer " + properties.apiKey())
-                    .defaultHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                    .defaultHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE);
+            this.restClient = builder.clone()
+                    .requestFactory(transport.requestFactory(properties.http().requestTimeout()))
                     .build();
-            log.info("OpenAI client enabled with model {}", properties.model());
+            this.assistantRestClient = builder.clone()
+                    .requestFactory(transport.requestFactory(properties.http().assistantTimeout()))
+                    .build();
+            log.info("OpenAI client enabled with model {} over up to {} pooled connections", properties.model(),
+                    properties.http().maxConnections());
         } else {
             this.restClient = null;
+            this.assistantRestClient = null;
             log.info("OpenAI client disabled. Set OPENAI_API_KEY and openai.enabled=true to enable explanations.");
         }
     }
@@ -55,60 +80,166 @@ public class OpenAiClient {
         return restClient != null;
     }
 
-    public Optional<String> generateReorderExplanation(ReorderPrediction prediction, long daysUntil) {
+    public boolean isCircuitOpen() {
+        return isEnabled() && circuitBreaker.isOpen();
+    }
+
+    // one request for the whole batch, with one entry per prompt in prompt order. An entry is empty when the
+    // model skipped that item or the call failed, and null when the circuit breaker or the rate limiter
+    // refused the call: the caller then serves its fallback without storing it, since the API never saw it
+    public List<Optional<String>> generateReorderExplanations(List<ReorderExplanationPrompt> prompts) {
+        try {
+            if (prompts.size() == 1) {
+                ReorderExplanationPrompt prompt = prompts.get(0);
+                return List.of(generateOne("reorder-explanation",
+                        buildReorderRequest(prompt.prediction(), prompt.daysUntil())));
+            }
+            List<String> items = prompts.stream()
+                    .map(prompt -> reorderFacts(prompt.prediction(), prompt.daysUntil()))
+                    .toList();
+            return generateBatch("reorder-explanation-batch", REORDER_SYSTEM_PROMPT,
+                    "For each item, generate a concise 1-2 sentence explanation for why the SKU is due for reorder. " +
+                            "Use only the provided facts, mention the cadence, last purchase, and predicted date.",
+                    items);
+        } catch (OpenAiUnavailableException ex) {
+            return Collections.nCopies(prompts.size(), null);
+        }
+    }
+
+    // same contract as generateReorderExplanations
+    public List<Optional<String>> generateBundleRationales(List<BundleRationalePrompt> prompts) {
+        try {
+            if (prompts.size() == 1) {
+                BundleRationalePrompt prompt = prompts.get(0);
+                return List.of(generateOne("bundle-rationale", bundleRequest(prompt.sku(), prompt.skuName(),
+                        prompt.relatedSku(), prompt.relatedName(), prompt.coPurchaseCount())));
+            }
+            List<String> items = prompts.stream()
+                    .map(prompt -> bundleFacts(prompt.sku(), prompt.skuName(), prompt.relatedSku(),
+                            prompt.relatedName(), prompt.coPurchaseCount()))
+                    .toList();
+            return generateBatch("bundle-rationale-batch", BUNDLE_SYSTEM_PROMPT,
+                    "For each item, explain in 1 sentence why these SKUs should be bundled. " +
+                            "Mention warehouse/operations context when relevant.",
+                    items);
+        } catch (OpenAiUnavailableException ex) {
+            return Collections.nCopies(prompts.size(), null);
+        }
+    }
+
+    private Optional<String> generateOne(String operation, Map<String, Object> payload) {
         if (!isEnabled()) {
             return Optional.empty();
         }
-        Map<String, Object> payload = buildReorderRequest(prediction, daysUntil);
         try {
-            JsonNode response = restClient.post()
-                    .uri(RESPONSES_PATH)
-                    .body(payload)
-                    .retrieve()
-                    .body(JsonNode.class);
-            String explanation = extractText(response);
-            if (!StringUtils.hasText(explanation)) {
+            String text = extractText(post(restClient, operation, payload));
+            if (!StringUtils.hasText(text)) {
                 return Optional.empty();
             }
-            return Optional.of(explanation.trim());
+            return Optional.of(text.trim());
         } catch (RestClientException ex) {
-            log.warn("OpenAI reorder explanation failed: {}", ex.getMessage());
+            log.warn("OpenAI {} failed: {}", operation, ex.getMessage());
             return Optional.empty();
         }
     }
 
-    public Optional<String> generateBundleRationale(String sku,
-                                                    String skuName,
-                                                    String relatedSku,
-                                                    String relatedName,
-                                                    long coPurchaseCount) {
-        if (!isEnabled()) {
-            return Optional.empty();
+    private List<Optional<String>> generateBatch(String operation, String system, String instructions,
+                                                 List<String> items) {
+        List<Optional<String>> results = new ArrayList<>(Collections.nCopies(items.size(), Optional.empty()));
+        if (!isEnabled() || items.isEmpty()) {
+            return results;
+        }
+        StringBuilder user = new StringBuilder(instructions).append('\n');
+        for (int i = 0; i < items.size(); i++) {
+            user.append("\nItem ").append(i).append(":\n").append(items.get(i));
         }
-        Map<String, Object> payload = bundleRequest(sku, skuName, relatedSku, relatedName, coPurchaseCount);
+        user.append("\nRespond with only a JSON array holding one object per item: ")
+                .append("[{\"id\":number,\"text\":string}], where id is the item number.");
+        Map<String, Object> payload = Map.of(
+                "model", properties.model(),
+                "input", List.of(message("system", system), message("user", user.toString())),
+                "temperature", properties.temperature(),
+                "max_output_tokens", properties.maxOutputTokens() * items.size()
+        );
         try {
-            JsonNode response = restClient.post()
+            JsonNode response = post(restClient, operation, payload);
+            String body = extractText(response);
+            if (!StringUtils.hasText(body)) {
+                return results;
+            }
+            JsonNode array = objectMapper.readTree(jsonArray(body));
+            if (!array.isArray()) {
+                log.warn("OpenAI {} reply was not a JSON array", operation);
+                return results;
+            }
+            for (JsonNode item : array) {
+                JsonNode id = item.path("id");
+                JsonNode text = item.path("text");
+                if (id.canConvertToInt() && id.asInt() >= 0 && id.asInt() < items.size()
+                        && text.isTextual() && StringUtils.hasText(text.asText())) {
+                    results.set(id.asInt(), Optional.of(text.asText().trim()));
+                }
+            }
+            return results;
+        } catch (RestClientException | JsonProcessingException ex) {
+            log.warn("OpenAI {} failed: {}", operation, ex.getMessage());
+            return new ArrayList<>(Collections.nCopies(items.size(), Optional.empty()));
+        }
+    }
+
+    private String jsonArray(String body) {
+        String cleaned = body.trim();
+        int start = cleaned.indexOf('[');
+        int end = cleaned.lastIndexOf(']');
+        if (start >= 0 && end > start) {
+            cleaned = cleaned.substring(start, end + 1);
+        }
+        return cleaned;
+    }
+
+    private JsonNode post(RestClient client, String operation, Map<String, Object> payload) {
+        if (!circuitBreaker.tryAcquire()) {
+            metrics.recordRejected(operation);
+            throw new OpenAiUnavailableException("OpenAI circuit is open");
+        }
+        if (!rateLimiter.tryAcquire()) {
+            circuitBreaker.onIgnored();
+            metrics.recordRejected(operation);
+            throw new OpenAiUnavailableException("OpenAI client-side rate limit reached");
+        }
+        long started = System.nanoTime();
+        try {
+            JsonNode response = client.post()
                     .uri(RESPONSES_PATH)
                     .body(payload)
                     .retrieve()
                     .body(JsonNode.class);
-            String rationale = extractText(response);
-            if (!StringUtils.hasText(rationale)) {
-                return Optional.empty();
+            long elapsed = System.nanoTime() - started;
+            circuitBreaker.onSuccess(elapsed);
+            rateLimiter.onSuccess();
+            metrics.recordSuccess(operation, elapsed);
+            return response;
+        } catch (RuntimeException ex) {
+            long elapsed = System.nanoTime() - started;
+            if (ex instanceof HttpClientErrorException.TooManyRequests) {
+                rateLimiter.onThrottled();
+                circuitBreaker.onIgnored();
+            } else if (ex instanceof HttpClientErrorException) {
+                // a rejected request says nothing about upstream health
+                circuitBreaker.onIgnored();
+            } else {
+                circuitBreaker.onFailure(elapsed);
             }
-            return Optional.of(rationale.trim());
-        } catch (RestClientException ex) {
-            log.warn("OpenAI bundle rationale failed: {}", ex.getMessage());
-            return Optional.empty();
+            metrics.recordFailure(operation, elapsed, ex);
+            throw ex;
         }
     }
 
     private Map<String, Object> buildReorderRequest(ReorderPrediction prediction, long daysUntil) {
-        String systemPrompt = "You are a procurement copilot that explains reorder recommendations.";
         String userPrompt = buildUserPrompt(prediction, daysUntil);
         return Map.of(
                 "model", properties.model(),
-                "input", List.of(message("system", systemPrompt), message("user", userPrompt)),
+                "input", List.of(message("system", REORDER_SYSTEM_PROMPT), message("user", userPrompt)),
                 "temperature", properties.temperature(),
                 "max_output_tokens", properties.maxOutputTokens()
         );
@@ -119,20 +250,13 @@ public class OpenAiClient {
                                               String relatedSku,
                                               String relatedName,
                                               long coPurchaseCount) {
-        String system = "You explain why two SKUs are often ordered together.";
-        String friendly = StringUtils.hasText(relatedName) ? relatedName : relatedSku;
-        String primaryFriendly = StringUtils.hasText(skuName) ? skuName : sku;
         String user = "Explain in 1 sentence why these SKUs should be bundled. " +
                 "Mention warehouse/operations context when relevant.\n" +
-                "Primary SKU: " + sku + '\n' +
-                "Primary name: " + primaryFriendly + '\n' +
-                "Related SKU: " + relatedSku + '\n' +
-                "Related name: " + friendly + '\n' +
-                "Co-purchase count: " + coPurchaseCount + '\n' +
+                bundleFacts(sku, skuName, relatedSku, relatedName, coPurchaseCount) +
                 "Reply with plain text.";
         return Map.of(
                 "model", properties.model(),
-                "input", List.of(message("system", system), message("user", user)),
+                "input", List.of(message("system", BUNDLE_SYSTEM_PROMPT), message("user", user)),
                 "temperature", properties.temperature(),
                 "max_output_tokens", properties.maxOutputTokens()
         );
@@ -146,20 +270,35 @@ public class OpenAiClient {
     }
 
     private String buildUserPrompt(ReorderPrediction prediction, long daysUntil) {
+        return "Generate a concise 1-2 sentence explanation for why this SKU is due for reorder. " +
+                "Use only the provided facts, mention the cadence, last purchase, and predicted date.\n" +
+                reorderFacts(prediction, daysUntil) +
+                "Reply with plain text only.";
+    }
+
+    private String reorderFacts(ReorderPrediction prediction, long daysUntil) {
         String product = StringUtils.hasText(prediction.productName()) ? prediction.productName() : prediction.sku();
         String confidencePercent = String.format("%.0f", prediction.confidence() * 100);
         String lastPurchase = DATE_FORMATTER.format(prediction.lastPurchaseAt().toLocalDate());
         String predicted = DATE_FORMATTER.format(prediction.predictedReorderAt().toLocalDate());
-        return "Generate a concise 1-2 sentence explanation for why this SKU is due for reorder. " +
-                "Use only the provided facts, mention the cadence, last purchase, and predicted date.\n" +
-                "SKU: " + prediction.sku() + '\n' +
+        return "SKU: " + prediction.sku() + '\n' +
                 "Product: " + product + '\n' +
                 "Typical cadence (days): " + prediction.medianDaysBetween() + '\n' +
                 "Last purchase: " + lastPurchase + '\n' +
                 "Predicted reorder date: " + predicted + '\n' +
                 "Days until predicted need: " + daysUntil + '\n' +
-                "Confidence percent: " + confidencePercent + '\n' +
-                "Reply with plain text only.";
+                "Confidence percent: " + confidencePercent + '\n';
+    }
+
+    private String bundleFacts(String sku, String skuName, String relatedSku, String relatedName,
+                               long coPurchaseCount) {
+        String friendly = StringUtils.hasText(relatedName) ? relatedName : relatedSku;
+        String primaryFriendly = StringUtils.hasText(skuName) ? skuName : sku;
+        return "Primary SKU: " + sku + '\n' +
+                "Primary name: " + primaryFriendly + '\n' +
+                "Related SKU: " + relatedSku + '\n' +
+                "Related name: " + friendly + '\n' +
+                "Co-purchase count: " + coPurchaseCount + '\n';
     }
 
     private String extractText(JsonNode response) {
@@ -193,11 +332,7 @@ public class OpenAiClient {
         }
         Map<String, Object> payload = assistantRequest(message, context, catalog);
         try {
-            JsonNode response = restClient.post()
-                    .uri(RESPONSES_PATH)
-                    .body(payload)
-                    .retrieve()
-                    .body(JsonNode.class);
+            JsonNode response = post(assistantRestClient, "assistant", payload);
             String body = extractText(response);
             if (!StringUtils.hasText(body)) {
                 return Optional.empty();
@@ -0,0 +1,86 @@
+package com.procuresense.backend.service.ai;
+
+import com.procuresense.backend.config.OpenAiProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+// token bucket whose refill rate halves on every 429 and creeps back up with each successful call
+@Component
+public class OpenAiRateLimiter {
+
+    private static final Logger log = LoggerFactory.getLogger(OpenAiRateLimiter.class);
+    private static final double MIN_RATE_FRACTION = 0.1;
+    private static final double RECOVERY_FRACTION = 0.05;
+
+    private final double maxRatePerNano;
+    private final double burst;
+    private final long maxWaitNanos;
+    private final LongSupplier nanoTime;
+    private double ratePerNano;
+    private double tokens;
+    private long refilledAt;
+
+    @Autowired
+    public OpenAiRateLimiter(OpenAiProperties properties) {
+        this(properties.rateLimit(), System::nanoTime);
+    }
+
+    OpenAiRateLimiter(OpenAiProperties.RateLimit settings, LongSupplier nanoTime) {
+        this.maxRatePerNano = settings.requestsPerMinute() / (double) TimeUnit.MINUTES.toNanos(1);
+        this.burst = settings.burst();
+        this.maxWaitNanos = settings.maxWait().toNanos();
+        this.nanoTime = nanoTime;
+        this.ratePerNano = maxRatePerNano;
+        this.tokens = burst;
+        this.refilledAt = nanoTime.getAsLong();
+    }
+
+    // sleeps for a token when it is due within maxWait; false means the caller should fall back
+    public boolean tryAcquire() {
+        long waitNanos;
+        synchronized (this) {
+            refill();
+            waitNanos = tokens >= 1 ? 0 : (long) Math.ceil((1 - tokens) / ratePerNano);
+            if (waitNanos > maxWaitNanos) {
+                return false;
+            }
+            // the token is reserved now so later callers queue up behind this one
+            tokens -= 1;
+        }
+        if (waitNanos > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(waitNanos);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public synchronized void onSuccess() {
+        ratePerNano = Math.min(maxRatePerNano, ratePerNano + maxRatePerNano * RECOVERY_FRACTION);
+    }
+
+    public synchronized void onThrottled() {
+        refill();
+        ratePerNano = Math.max(maxRatePerNano * MIN_RATE_FRACTION, ratePerNano / 2);
+        tokens = Math.min(tokens, 0);
+        log.warn("OpenAI throttled the client; slowing to {} requests per minute", requestsPerMinute());
+    }
+
+    public synchronized long requestsPerMinute() {
+        return Math.round(ratePerNano * TimeUnit.MINUTES.toNanos(1));
+    }
+
+    private void refill() {
+        long now = nanoTime.getAsLong();
+        tokens = Math.min(burst, tokens + (now - refilledAt) * ratePerNano);
+        refilledAt = now;
+    }
+}
@@ -0,0 +1,97 @@
+package com.procuresense.backend.service.ai;
+
+import com.procuresense.backend.config.OpenAiProperties;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+// a key stays pending until its regeneration finishes, so a stale entry triggers only one OpenAI call
+@Component
+public class OpenAiRefreshQueue {
+
+    private static final Logger log = LoggerFactory.getLogger(OpenAiRefreshQueue.class);
+
+    private final Set<String> pending = new HashSet<>();
+    private final int maxPendingKeys;
+    private final ExecutorService executor;
+
+    @Autowired
+    public OpenAiRefreshQueue(OpenAiProperties properties) {
+        this(properties.refresh().background(), properties.refresh().workers(),
+                properties.refresh().maxPendingKeys());
+    }
+
+    public OpenAiRefreshQueue(boolean background, int workers, int maxPendingKeys) {
+        this.maxPendingKeys = maxPendingKeys;
+        this.executor = background ? Executors.newFixedThreadPool(workers, workerThreads()) : null;
+    }
+
+    public boolean isEnabled() {
+        return executor != null;
+    }
+
+    // items over the pending limit are dropped; the next request that sees them stale offers them again
+    public <T> int submit(List<T> items, Function<T, String> keyOf, Consumer<List<T>> regenerate) {
+        if (executor == null) {
+            return 0;
+        }
+        List<T> accepted = new ArrayList<>();
+        List<String> keys = new ArrayList<>();
+        synchronized (pending) {
+            for (T item : items) {
+                String key = keyOf.apply(item);
+                if (pending.size() >= maxPendingKeys) {
+                    break;
+                }
+                if (pending.add(key)) {
+                    accepted.add(item);
+                    keys.add(key);
+                }
+            }
+        }
+        if (accepted.isEmpty()) {
+            return 0;
+        }
+        executor.execute(() -> {
+            try {
+                regenerate.accept(accepted);
+            } catch (RuntimeException ex) {
+                log.warn("Background regeneration of {} AI texts failed", accepted.size(), ex);
+            } finally {
+                synchronized (pending) {
+                    keys.forEach(pending::remove);
+                }
+            }
+        });
+        return accepted.size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    private static ThreadFactory workerThreads() {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "openai-refresh-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
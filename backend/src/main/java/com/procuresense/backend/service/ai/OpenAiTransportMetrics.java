@@ -0,0 +1,88 @@
+package com.procuresense.backend.service.ai;
+
+import com.procuresense.backend.model.OpenAiTransportStats;
+import org.apache.hc.core5.pool.PoolStats;
+import org.springframework.stereotype.Component;
+
+import java.net.SocketTimeoutException;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+@Component
+public class OpenAiTransportMetrics {
+
+    private final Map<String, OperationCounters> operations = new ConcurrentHashMap<>();
+    private final LongAdder connectionsOpened = new LongAdder();
+
+    void recordSuccess(String operation, long elapsedNanos) {
+        counters(operation).record(elapsedNanos);
+    }
+
+    // refused by the circuit breaker or the rate limiter without reaching the network
+    void recordRejected(String operation) {
+        counters(operation).rejected.increment();
+    }
+
+    void recordConnectionOpened() {
+        connectionsOpened.increment();
+    }
+
+    void recordFailure(String operation, long elapsedNanos, Throwable failure) {
+        OperationCounters counters = counters(operation);
+        counters.record(elapsedNanos);
+        counters.failures.increment();
+        if (isTimeout(failure)) {
+            counters.timeouts.increment();
+        }
+    }
+
+    public OpenAiTransportStats snapshot(String circuitState, PoolStats pool) {
+        Map<String, OpenAiTransportStats.OperationStats> stats = new TreeMap<>();
+        long requests = 0;
+        for (Map.Entry<String, OperationCounters> entry : operations.entrySet()) {
+            OperationCounters counters = entry.getValue();
+            long count = counters.requests.sum();
+            requests += count;
+            double meanMs = count == 0 ? 0 : counters.totalNanos.sum() / (double) count / 1_000_000;
+            stats.put(entry.getKey(), new OpenAiTransportStats.OperationStats(count, counters.failures.sum(),
+                    counters.timeouts.sum(), counters.rejected.sum(), meanMs, TimeUnit.NANOSECONDS.toMillis(counters.maxNanos.get())));
+        }
+        long opened = connectionsOpened.sum();
+        OpenAiTransportStats.Connections connections = new OpenAiTransportStats.Connections(pool.getLeased(),
+                pool.getAvailable(), pool.getPending(), pool.getMax(), opened,
+                requests == 0 ? 0 : opened / (double) requests);
+        return new OpenAiTransportStats(circuitState, requests, connections, stats);
+    }
+
+    private OperationCounters counters(String operation) {
+        return operations.computeIfAbsent(operation, key -> new OperationCounters());
+    }
+
+    private static boolean isTimeout(Throwable failure) {
+        for (Throwable cause = failure; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SocketTimeoutException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static final class OperationCounters {
+        private final LongAdder requests = new LongAdder();
+        private final LongAdder failures = new LongAdder();
+        private final LongAdder timeouts = new LongAdder();
+        private final LongAdder rejected = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+        private void record(long elapsedNanos) {
+            requests.increment();
+            totalNanos.add(elapsedNanos);
+            maxNanos.accumulate(elapsedNanos);
+        }
+    }
+}
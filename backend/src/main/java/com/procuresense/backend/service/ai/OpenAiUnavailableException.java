@@ -0,0 +1,9 @@
+package com.procuresense.backend.service.ai;
+
+// raised instead of calling the API when the circuit is open or no rate-limit token is available
+class OpenAiUnavailableException extends RuntimeException {
+
+    OpenAiUnavailableException(String message) {
+        super(message);
+    }
+}
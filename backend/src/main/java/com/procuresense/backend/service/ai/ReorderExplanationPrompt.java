@@ -0,0 +1,6 @@
+package com.procuresense.backend.service.ai;
+
+import com.procuresense.backend.model.ReorderPrediction;
+
+public record ReorderExplanationPrompt(ReorderPrediction prediction, long daysUntil) {
+}
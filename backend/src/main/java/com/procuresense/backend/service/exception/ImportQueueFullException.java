@@ -0,0 +1,8 @@
+package com.procuresense.backend.service.exception;
+
+public class ImportQueueFullException extends RuntimeException {
+
+    public ImportQueueFullException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,67 @@
+package com.procuresense.backend.service.ingest;
+
+import io.airlift.compress.zstd.ZstdInputStream;
+import org.springframework.util.StringUtils;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Locale;
+import java.util.zip.GZIPInputStream;
+
+public final class CompressedUploads {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final byte[] GZIP_MAGIC = {(byte) 0x1f, (byte) 0x8b};
+    private static final byte[] ZSTD_MAGIC = {(byte) 0x28, (byte) 0xb5, (byte) 0x2f, (byte) 0xfd};
+
+    private CompressedUploads() {
+    }
+
+    public static InputStream decode(InputStream raw, String contentType) throws IOException {
+        InputStream input = new BufferedInputStream(raw, BUFFER_SIZE);
+        return switch (detect(input, contentType)) {
+            case GZIP -> new GZIPInputStream(input, BUFFER_SIZE);
+            case ZSTD -> new BufferedInputStream(new ZstdInputStream(input), BUFFER_SIZE);
+            case NONE -> input;
+        };
+    }
+
+    private static Compression detect(InputStream input, String contentType) throws IOException {
+        if (StringUtils.hasText(contentType)) {
+            String type = contentType.toLowerCase(Locale.US);
+            if (type.contains("gzip")) {
+                return Compression.GZIP;
+            }
+            if (type.contains("zstd")) {
+                return Compression.ZSTD;
+            }
+        }
+        input.mark(ZSTD_MAGIC.length);
+        byte[] head = input.readNBytes(ZSTD_MAGIC.length);
+        input.reset();
+        if (startsWith(head, GZIP_MAGIC)) {
+            return Compression.GZIP;
+        }
+        if (startsWith(head, ZSTD_MAGIC)) {
+            return Compression.ZSTD;
+        }
+        return Compression.NONE;
+    }
+
+    private static boolean startsWith(byte[] head, byte[] magic) {
+        if (head.length < magic.length) {
+            return false;
+        }
+        for (int i = 0; i < magic.length; i++) {
+            if (head[i] != magic[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private enum Compression {
+        NONE, GZIP, ZSTD
+    }
+}
@@ -0,0 +1,35 @@
+package com.procuresense.backend.service.ingest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+public final class ContentFingerprints {
+
+    private ContentFingerprints() {
+    }
+
+    public static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    public static String sha256(InputStream input) throws IOException {
+        MessageDigest digest = newDigest();
+        try (DigestInputStream digesting = new DigestInputStream(input, digest)) {
+            digesting.transferTo(OutputStream.nullOutputStream());
+        }
+        return toHex(digest);
+    }
+
+    public static String toHex(MessageDigest digest) {
+        return HexFormat.of().formatHex(digest.digest());
+    }
+}
@@ -0,0 +1,178 @@
+package com.procuresense.backend.service.ingest;
+
+import org.postgresql.PGConnection;
+import org.postgresql.copy.PGCopyOutputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+
+@Component
+@ConditionalOnProperty(prefix = "purchase.import", name = "engine", havingValue = "copy")
+public class CopyPurchaseIngestEngine implements PurchaseIngestEngine {
+
+    private static final Logger log = LoggerFactory.getLogger(CopyPurchaseIngestEngine.class);
+    private static final int COPY_BUFFER_BYTES = 64 * 1024;
+
+    private static final String CREATE_STAGING = """
+            create temp table if not exists purchase_import_staging (
+                line_no bigint not null,
+                order_id varchar(255) not null,
+                sku varchar(255) not null,
+                product_name varchar(255) not null,
+                category varchar(255),
+                quantity integer not null,
+                unit_price numeric(12,2) not null,
+                purchased_at timestamptz not null
+            ) on commit delete rows""";
+
+    private static final String COPY_STAGING = """
+            copy purchase_import_staging (line_no, order_id, sku, product_name, category, quantity, unit_price, purchased_at)
+            from stdin with (format csv)""";
+
+    // the final select reads the statement's snapshot, so it counts the names the upsert replaces
+    private static final String UPSERT_PRODUCTS = """
+            with incoming as (
+                select distinct on (sku) sku, product_name, category, unit_price
+                from purchase_import_staging
+                order by sku, line_no
+            ), upserted as (
+                insert into products (sku, name, category, unit_price)
+                select sku, product_name, category, unit_price from incoming
+                on conflict (sku) do update
+                    set name = excluded.name,
+                        category = excluded.category,
+                        unit_price = excluded.unit_price
+                    where (products.name, products.category, products.unit_price)
+                          is distinct from (excluded.name, excluded.category, excluded.unit_price)
+            )
+            select count(*) from incoming i join products p on p.sku = i.sku
+            where p.name is distinct from i.product_name""";
+
+    private static final String INSERT_PURCHASES = """
+            with inserted as (
+                insert into purchases (org_id, order_id, product_id, quantity, unit_price, purchased_at)
+                select ?, s.order_id, p.id, s.quantity, s.unit_price, s.purchased_at
+                from purchase_import_staging s
+                join products p on p.sku = s.sku
+                order by s.line_no
+                on conflict (org_id, order_id, product_id, purchased_at) do nothing
+                returning order_id, product_id, purchased_at
+            )
+            select min(s.line_no)
+            from inserted i
+            join products p on p.id = i.product_id
+            join purchase_import_staging s
+                on s.order_id = i.order_id and s.sku = p.sku and s.purchased_at = i.purchased_at
+            group by i.order_id, i.product_id, i.purchased_at
+            order by 1""";
+
+    private final DataSource dataSource;
+
+    public CopyPurchaseIngestEngine(DataSource dataSource) {
+        this.dataSource = dataSource;
+        log.info("Purchase imports use PostgreSQL COPY ingestion");
+    }
+
+    @Override
+    public Session openSession(String orgId) {
+        return new Session() {
+            private boolean renamedProducts;
+
+            @Override
+            public List<PurchaseRow> writeChunk(List<PurchaseRow> rows) {
+                ChunkResult result = CopyPurchaseIngestEngine.this.writeChunk(orgId, rows);
+                renamedProducts |= result.renamedProducts();
+                return result.inserted();
+            }
+
+            @Override
+            public boolean renamedProducts() {
+                return renamedProducts;
+            }
+        };
+    }
+
+    private ChunkResult writeChunk(String orgId, List<PurchaseRow> rows) {
+        Connection connection = DataSourceUtils.getConnection(dataSource);
+        try {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute(CREATE_STAGING);
+            }
+            copyIntoStaging(connection.unwrap(PGConnection.class), rows);
+            boolean renamedProducts;
+            try (Statement statement = connection.createStatement();
+                 ResultSet renamed = statement.executeQuery(UPSERT_PRODUCTS)) {
+                renamedProducts = renamed.next() && renamed.getLong(1) > 0;
+            }
+            try (PreparedStatement statement = connection.prepareStatement(INSERT_PURCHASES)) {
+                statement.setString(1, orgId);
+                return new ChunkResult(insertedRows(statement, rows), renamedProducts);
+            }
+        } catch (SQLException | IOException e) {
+            throw new IllegalStateException("COPY ingestion failed: " + e.getMessage(), e);
+        } finally {
+            DataSourceUtils.releaseConnection(connection, dataSource);
+        }
+    }
+
+    // maps each inserted natural key back to the first staging line that carried it
+    private List<PurchaseRow> insertedRows(PreparedStatement statement, List<PurchaseRow> rows) throws SQLException {
+        List<PurchaseRow> inserted = new ArrayList<>(rows.size());
+        try (ResultSet resultSet = statement.executeQuery()) {
+            while (resultSet.next()) {
+                inserted.add(rows.get(resultSet.getInt(1)));
+            }
+        }
+        return inserted;
+    }
+
+    private void copyIntoStaging(PGConnection connection, List<PurchaseRow> rows) throws SQLException, IOException {
+        try (Writer writer = new OutputStreamWriter(
+                new PGCopyOutputStream(connection, COPY_STAGING, COPY_BUFFER_BYTES), StandardCharsets.UTF_8)) {
+            long lineNo = 0;
+            for (PurchaseRow row : rows) {
+                writer.write(Long.toString(lineNo++));
+                writer.write(',');
+                writeQuoted(writer, row.orderId());
+                writer.write(',');
+                writeQuoted(writer, row.sku());
+                writer.write(',');
+                writeQuoted(writer, row.productName());
+                writer.write(',');
+                writeQuoted(writer, row.category());
+                writer.write(',');
+                writer.write(Integer.toString(row.quantity()));
+                writer.write(',');
+                writer.write(row.unitPrice().toPlainString());
+                writer.write(',');
+                writer.write(DateTimeFormatter.ISO_OFFSET_DATE_TIME.format(row.purchasedAt()));
+                writer.write('\n');
+            }
+        }
+    }
+
+    private void writeQuoted(Writer writer, String value) throws IOException {
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+
+    private record ChunkResult(List<PurchaseRow> inserted, boolean renamedProducts) {
+    }
+}
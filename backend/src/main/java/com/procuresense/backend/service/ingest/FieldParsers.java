@@ -0,0 +1,104 @@
+package com.procuresense.backend.service.ingest;
+
+import java.math.BigDecimal;
+
+// anything outside the plain ASCII fast path is handed to the JDK parsers so accepted values never change
+final class FieldParsers {
+
+    static final long INVALID_INT = Long.MIN_VALUE;
+
+    private static final int MAX_FAST_DECIMAL_DIGITS = 18;
+
+    private FieldParsers() {
+    }
+
+    static long parseInt(String value) {
+        int length = value.length();
+        if (length == 0) {
+            return INVALID_INT;
+        }
+        int position = 0;
+        boolean negative = false;
+        char first = value.charAt(0);
+        if (first == '-' || first == '+') {
+            if (length == 1) {
+                return INVALID_INT;
+            }
+            negative = first == '-';
+            position = 1;
+        }
+        long result = 0;
+        for (; position < length; position++) {
+            char c = value.charAt(position);
+            if (c >= '0' && c <= '9') {
+                result = result * 10 + (c - '0');
+                if (result > -(long) Integer.MIN_VALUE) {
+                    return INVALID_INT;
+                }
+            } else if (c < 128) {
+                return INVALID_INT;
+            } else {
+                return parseIntWithJdk(value);
+            }
+        }
+        result = negative ? -result : result;
+        return result > Integer.MAX_VALUE ? INVALID_INT : result;
+    }
+
+    static BigDecimal parseDecimal(String value) {
+        int length = value.length();
+        if (length == 0) {
+            return null;
+        }
+        int position = 0;
+        boolean negative = false;
+        char first = value.charAt(0);
+        if (first == '-' || first == '+') {
+            negative = first == '-';
+            position = 1;
+        }
+        long unscaled = 0;
+        int digits = 0;
+        int scale = 0;
+        boolean seenPoint = false;
+        for (; position < length; position++) {
+            char c = value.charAt(position);
+            if (c >= '0' && c <= '9') {
+                if (digits == MAX_FAST_DECIMAL_DIGITS) {
+                    return parseDecimalWithJdk(value);
+                }
+                unscaled = unscaled * 10 + (c - '0');
+                digits++;
+                if (seenPoint) {
+                    scale++;
+                }
+            } else if (c == '.' && !seenPoint) {
+                seenPoint = true;
+            } else if (c == 'e' || c == 'E' || c >= 128) {
+                return parseDecimalWithJdk(value);
+            } else {
+                return null;
+            }
+        }
+        if (digits == 0) {
+            return null;
+        }
+        return BigDecimal.valueOf(negative ? -unscaled : unscaled, scale);
+    }
+
+    private static long parseIntWithJdk(String value) {
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            return INVALID_INT;
+        }
+    }
+
+    private static BigDecimal parseDecimalWithJdk(String value) {
+        try {
+            return new BigDecimal(value);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.procuresense.backend.service.ingest;
+
+import com.procuresense.backend.model.Product;
+import com.procuresense.backend.model.ProductUpsert;
+import com.procuresense.backend.model.Purchase;
+import com.procuresense.backend.repository.ProductRepository;
+import com.procuresense.backend.repository.PurchaseRepository;
+import jakarta.persistence.EntityManager;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+@Component
+@ConditionalOnProperty(prefix = "purchase.import", name = "engine", havingValue = "jpa", matchIfMissing = true)
+public class JpaPurchaseIngestEngine implements PurchaseIngestEngine {
+
+    private final ProductRepository productRepository;
+    private final PurchaseRepository purchaseRepository;
+    private final EntityManager entityManager;
+
+    public JpaPurchaseIngestEngine(ProductRepository productRepository,
+                                   PurchaseRepository purchaseRepository,
+                                   EntityManager entityManager) {
+        this.productRepository = productRepository;
+        this.purchaseRepository = purchaseRepository;
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    public Session openSession(String orgId) {
+        return new JpaSession(orgId);
+    }
+
+    private final class JpaSession implements Session {
+        private final String orgId;
+        private final Map<String, Long> productIds = new HashMap<>();
+        private boolean renamedProducts;
+
+        private JpaSession(String orgId) {
+            this.orgId = orgId;
+        }
+
+        @Override
+        public List<PurchaseRow> writeChunk(List<PurchaseRow> rows) {
+            Map<String, Product> unresolved = new LinkedHashMap<>();
+            for (PurchaseRow row : rows) {
+                if (!productIds.containsKey(row.sku())) {
+                    unresolved.putIfAbsent(row.sku(), toProduct(row));
+                }
+            }
+            ProductUpsert upsert = productRepository.upsertAllBySku(unresolved.values());
+            productIds.putAll(upsert.ids());
+            renamedProducts |= upsert.renamed();
+
+            Set<String> orderIds = new HashSet<>();
+            rows.forEach(row -> orderIds.add(row.orderId()));
+            Set<NaturalKey> seen = new HashSet<>();
+            for (Object[] existing : purchaseRepository.findNaturalKeys(orgId, orderIds)) {
+                seen.add(new NaturalKey((String) existing[0], (Long) existing[1],
+                        ((OffsetDateTime) existing[2]).toInstant()));
+            }
+
+            List<PurchaseRow> inserted = new ArrayList<>(rows.size());
+            List<Purchase> purchases = new ArrayList<>(rows.size());
+            for (PurchaseRow row : rows) {
+                Long productId = productIds.get(row.sku());
+                if (seen.add(new NaturalKey(row.orderId(), productId, row.purchasedAt().toInstant()))) {
+                    inserted.add(row);
+                    purchases.add(toPurchase(row, entityManager.getReference(Product.class, productId), orgId));
+                }
+            }
+            purchaseRepository.saveAll(purchases);
+            // detach the chunk so the persistence context does not grow with the file
+            entityManager.flush();
+            entityManager.clear();
+            return inserted;
+        }
+
+        @Override
+        public boolean renamedProducts() {
+            return renamedProducts;
+        }
+    }
+
+    private Product toProduct(PurchaseRow row) {
+        Product product = new Product();
+        product.setSku(row.sku());
+        product.setName(row.productName());
+        product.setCategory(row.category());
+        product.setUnitPrice(row.unitPrice());
+        return product;
+    }
+
+    private Purchase toPurchase(PurchaseRow row, Product product, String orgId) {
+        Purchase purchase = new Purchase();
+        purchase.setOrgId(orgId);
+        purchase.setOrderId(row.orderId());
+        purchase.setProduct(product);
+        purchase.setQuantity(row.quantity());
+        purchase.setUnitPrice(row.unitPrice());
+        purchase.setPurchasedAt(row.purchasedAt());
+        return purchase;
+    }
+
+    private record NaturalKey(String orderId, Long productId, Instant purchasedAt) {
+    }
+}
@@ -0,0 +1,226 @@
+package com.procuresense.backend.service.ingest;
+
+import com.procuresense.backend.config.PurchaseImportProperties;
+import jakarta.annotation.PreDestroy;
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVParser;
+import org.apache.commons.csv.CSVRecord;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+@Component
+public class PurchaseCsvParser {
+
+    private static final CSVFormat HEADER_FORMAT = CSVFormat.DEFAULT.builder()
+            .setHeader()
+            .setSkipHeaderRecord(true)
+            .setTrim(true)
+            .build();
+    private static final CSVFormat RECORD_FORMAT = CSVFormat.DEFAULT.builder()
+            .setTrim(true)
+            .build();
+    private static final int SLICE_RECORDS = 4096;
+
+    private final int parallelism;
+    private final ForkJoinPool pool;
+
+    @Autowired
+    public PurchaseCsvParser(PurchaseImportProperties properties) {
+        this(properties.parseParallelism());
+    }
+
+    public PurchaseCsvParser(int parallelism) {
+        this.parallelism = parallelism;
+        this.pool = parallelism > 1 ? new ForkJoinPool(parallelism) : null;
+    }
+
+    public void parse(Reader reader, RowSink sink) throws IOException {
+        try {
+            if (pool == null) {
+                parseSequential(reader, sink);
+            } else {
+                parseParallel(reader, sink);
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (pool != null) {
+            pool.shutdownNow();
+        }
+    }
+
+    private void parseSequential(Reader reader, RowSink sink) throws IOException {
+        CSVParser parser = HEADER_FORMAT.parse(reader);
+        PurchaseCsvSchema schema = PurchaseCsvSchema.fromHeaderMap(headerMap(parser));
+        for (CSVRecord record : parser) {
+            schema.toRow(record, record.getRecordNumber(), sink);
+        }
+    }
+
+    private void parseParallel(Reader reader, RowSink sink) throws IOException {
+        RecordScanner scanner = new RecordScanner(reader);
+        StringBuilder header = new StringBuilder();
+        Map<String, Integer> headerMap = scanner.appendRecords(header, 1) == 0
+                ? Map.of()
+                : headerMap(HEADER_FORMAT.parse(new StringReader(header.toString())));
+        PurchaseCsvSchema schema = PurchaseCsvSchema.fromHeaderMap(headerMap);
+
+        Deque<ForkJoinTask<SliceResult>> inFlight = new ArrayDeque<>();
+        try {
+            long nextRecordNumber = 1;
+            while (true) {
+                StringBuilder slice = new StringBuilder();
+                int records = scanner.appendRecords(slice, SLICE_RECORDS);
+                if (records == 0) {
+                    break;
+                }
+                long firstRecordNumber = nextRecordNumber;
+                nextRecordNumber += records;
+                String text = slice.toString();
+                inFlight.add(pool.submit(() -> parseSlice(schema, text, firstRecordNumber)));
+                if (inFlight.size() >= parallelism * 2) {
+                    inFlight.poll().join().replay(sink);
+                }
+            }
+            while (!inFlight.isEmpty()) {
+                inFlight.poll().join().replay(sink);
+            }
+        } finally {
+            inFlight.forEach(task -> task.cancel(true));
+        }
+    }
+
+    private SliceResult parseSlice(PurchaseCsvSchema schema, String text, long firstRecordNumber) {
+        SliceResult result = new SliceResult();
+        try (CSVParser parser = RECORD_FORMAT.parse(new StringReader(text))) {
+            long recordNumber = firstRecordNumber;
+            for (CSVRecord record : parser) {
+                schema.toRow(record, recordNumber++, result);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return result;
+    }
+
+    private static Map<String, Integer> headerMap(CSVParser parser) {
+        Map<String, Integer> headerMap = parser.getHeaderMap();
+        return headerMap == null ? Map.of() : headerMap;
+    }
+
+    private static final class SliceResult implements RowSink {
+        private final List<PurchaseRow> rows = new ArrayList<>();
+        private final List<Rejection> rejections = new ArrayList<>();
+
+        @Override
+        public void accept(PurchaseRow row) {
+            rows.add(row);
+        }
+
+        @Override
+        public void reject(long recordNumber, String message) {
+            rejections.add(new Rejection(recordNumber, message));
+        }
+
+        private void replay(RowSink sink) {
+            rows.forEach(sink::accept);
+            rejections.forEach(rejection -> sink.reject(rejection.recordNumber(), rejection.message()));
+        }
+    }
+
+    private record Rejection(long recordNumber, String message) {
+    }
+
+    // splits records without tokenizing fields; follows CSVFormat.DEFAULT quoting and skips empty
+    // lines the way CSVParser does, so record numbers line up with the sequential path
+    private static final class RecordScanner {
+        private static final int FIELD_START = 0;
+        private static final int UNQUOTED = 1;
+        private static final int QUOTED = 2;
+        private static final int QUOTE_IN_QUOTED = 3;
+
+        private final Reader reader;
+        private final char[] buffer = new char[64 * 1024];
+        private int position;
+        private int limit;
+
+        private RecordScanner(Reader reader) {
+            this.reader = reader;
+        }
+
+        private int appendRecords(StringBuilder target, int maxRecords) throws IOException {
+            int records = 0;
+            while (records < maxRecords && appendRecord(target)) {
+                records++;
+            }
+            return records;
+        }
+
+        private boolean appendRecord(StringBuilder target) throws IOException {
+            int recordStart = target.length();
+            int state = FIELD_START;
+            while (true) {
+                if (position == limit && !fill()) {
+                    if (target.length() > recordStart) {
+                        target.append('\n');
+                        return true;
+                    }
+                    return false;
+                }
+                int runStart = position;
+                while (position < limit) {
+                    char c = buffer[position];
+                    if ((c == '\n' || c == '\r') && state != QUOTED) {
+                        target.append(buffer, runStart, position - runStart);
+                        position++;
+                        if (target.length() > recordStart) {
+                            target.append('\n');
+                            return true;
+                        }
+                        state = FIELD_START;
+                        runStart = position;
+                        continue;
+                    }
+                    state = next(state, c);
+                    position++;
+                }
+                target.append(buffer, runStart, position - runStart);
+            }
+        }
+
+        private int next(int state, char c) {
+            return switch (state) {
+                case FIELD_START -> c == '"' ? QUOTED : c == ',' ? FIELD_START : UNQUOTED;
+                case QUOTED -> c == '"' ? QUOTE_IN_QUOTED : QUOTED;
+                case QUOTE_IN_QUOTED -> c == '"' ? QUOTED : c == ',' ? FIELD_START : UNQUOTED;
+                default -> c == ',' ? FIELD_START : UNQUOTED;
+            };
+        }
+
+        private boolean fill() throws IOException {
+            int read = reader.read(buffer, 0, buffer.length);
+            if (read <= 0) {
+                return false;
+            }
+            position = 0;
+            limit = read;
+            return true;
+        }
+    }
+}
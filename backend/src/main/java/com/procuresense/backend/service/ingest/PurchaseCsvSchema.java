@@ -0,0 +1,171 @@
+package com.procuresense.backend.service.ingest;
+
+import com.procuresense.backend.service.exception.CsvValidationException;
+import org.apache.commons.csv.CSVRecord;
+import org.springframework.util.StringUtils;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+public final class PurchaseCsvSchema {
+
+    private static final Set<String> REQUIRED_HEADERS = Set.of(
+            "order_id",
+            "sku",
+            "product_name",
+            "category",
+            "quantity",
+            "unit_price",
+            "purchased_at"
+    );
+
+    private final Column orderId;
+    private final Column sku;
+    private final Column productName;
+    private final Column category;
+    private final Column quantity;
+    private final Column unitPrice;
+    private final Column purchasedAt;
+    private final List<Column> columnsInCheckOrder;
+    private final int maxIndex;
+    private final TimestampParser timestamps = new TimestampParser();
+
+    private PurchaseCsvSchema(Map<String, Column> columns) {
+        this.orderId = columns.get("order_id");
+        this.sku = columns.get("sku");
+        this.productName = columns.get("product_name");
+        this.category = columns.get("category");
+        this.quantity = columns.get("quantity");
+        this.unitPrice = columns.get("unit_price");
+        this.purchasedAt = columns.get("purchased_at");
+        this.columnsInCheckOrder = List.of(orderId, sku, productName, category, quantity, unitPrice, purchasedAt);
+        this.maxIndex = columnsInCheckOrder.stream().mapToInt(Column::index).max().orElse(0);
+    }
+
+    public static PurchaseCsvSchema fromHeaderMap(Map<String, Integer> headerMap) {
+        Map<String, Column> normalized = normalizeHeaders(headerMap);
+        validateHeaders(normalized.keySet());
+        return new PurchaseCsvSchema(normalized);
+    }
+
+    static Map<String, Column> normalizeHeaders(Map<String, Integer> headerMap) {
+        Map<String, Column> normalized = new HashMap<>();
+        headerMap.forEach((original, index) -> {
+            String key = original == null ? "" : original.trim().toLowerCase(Locale.US);
+            if (StringUtils.hasText(key)) {
+                normalized.put(key, new Column(original, index));
+            }
+        });
+        return normalized;
+    }
+
+    private static void validateHeaders(Set<String> actualHeaders) {
+        Set<String> missing = new HashSet<>(REQUIRED_HEADERS);
+        missing.removeAll(actualHeaders);
+        if (!missing.isEmpty()) {
+            throw new CsvValidationException("Missing required columns: " + String.join(", ", missing));
+        }
+    }
+
+    public void toRow(CSVRecord record, long recordNumber, RowSink sink) {
+        String missingColumn = missingColumnMessage(record);
+        if (missingColumn != null) {
+            sink.reject(recordNumber, missingColumn);
+            return;
+        }
+        String orderIdValue = record.get(orderId.index());
+        String skuValue = record.get(sku.index());
+        String productNameValue = record.get(productName.index());
+        String categoryValue = record.get(category.index());
+
+        RowError error = null;
+        if (!StringUtils.hasText(orderIdValue)) {
+            error = RowError.ORDER_ID_REQUIRED;
+        } else if (!StringUtils.hasText(skuValue)) {
+            error = RowError.SKU_REQUIRED;
+        } else if (!StringUtils.hasText(productNameValue)) {
+            error = RowError.PRODUCT_NAME_REQUIRED;
+        } else if (!StringUtils.hasText(categoryValue)) {
+            error = RowError.CATEGORY_REQUIRED;
+        }
+        if (error != null) {
+            sink.reject(recordNumber, error.message());
+            return;
+        }
+
+        long parsedQuantity = FieldParsers.parseInt(record.get(quantity.index()));
+        if (parsedQuantity == FieldParsers.INVALID_INT) {
+            sink.reject(recordNumber, RowError.QUANTITY_NOT_INTEGER.message());
+            return;
+        }
+        if (parsedQuantity <= 0) {
+            sink.reject(recordNumber, RowError.QUANTITY_NOT_POSITIVE.message());
+            return;
+        }
+
+        BigDecimal parsedUnitPrice = FieldParsers.parseDecimal(record.get(unitPrice.index()));
+        if (parsedUnitPrice == null) {
+            sink.reject(recordNumber, RowError.UNIT_PRICE_NOT_NUMERIC.message());
+            return;
+        }
+        if (parsedUnitPrice.signum() <= 0) {
+            sink.reject(recordNumber, RowError.UNIT_PRICE_NOT_POSITIVE.message());
+            return;
+        }
+
+        OffsetDateTime parsedPurchasedAt = timestamps.parse(record.get(purchasedAt.index()));
+        if (parsedPurchasedAt == null) {
+            sink.reject(recordNumber, RowError.PURCHASED_AT_NOT_ISO.message());
+            return;
+        }
+
+        sink.accept(new PurchaseRow(orderIdValue, skuValue, productNameValue, categoryValue,
+                (int) parsedQuantity, parsedUnitPrice, parsedPurchasedAt));
+    }
+
+    // records parsed without a header are read by index, so mirror CSVRecord.get(String) for short rows
+    private String missingColumnMessage(CSVRecord record) {
+        int size = record.size();
+        if (size > maxIndex) {
+            return null;
+        }
+        for (Column column : columnsInCheckOrder) {
+            if (column.index() >= size) {
+                return String.format("Index for header '%s' is %d but CSVRecord only has %d values!",
+                        column.name(), column.index(), size);
+            }
+        }
+        return null;
+    }
+
+    enum RowError {
+        ORDER_ID_REQUIRED("order_id is required"),
+        SKU_REQUIRED("sku is required"),
+        PRODUCT_NAME_REQUIRED("product_name is required"),
+        CATEGORY_REQUIRED("category is required"),
+        QUANTITY_NOT_INTEGER("quantity must be an integer"),
+        QUANTITY_NOT_POSITIVE("quantity must be greater than zero"),
+        UNIT_PRICE_NOT_NUMERIC("unit_price must be numeric"),
+        UNIT_PRICE_NOT_POSITIVE("unit_price must be greater than zero"),
+        PURCHASED_AT_NOT_ISO("purchased_at must be ISO-8601");
+
+        private final String message;
+
+        RowError(String message) {
+            this.message = message;
+        }
+
+        String message() {
+            return message;
+        }
+    }
+
+    record Column(String name, int index) {
+    }
+}
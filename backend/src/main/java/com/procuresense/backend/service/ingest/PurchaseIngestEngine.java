@@ -0,0 +1,17 @@
+package com.procuresense.backend.service.ingest;
+
+import java.util.List;
+
+public interface PurchaseIngestEngine {
+
+    Session openSession(String orgId);
+
+    interface Session {
+
+        // returns the rows actually inserted; rows already stored under the natural key are skipped
+        List<PurchaseRow> writeChunk(List<PurchaseRow> rows);
+
+        // true once a chunk has changed the name of a product that already existed
+        boolean renamedProducts();
+    }
+}
@@ -0,0 +1,13 @@
+package com.procuresense.backend.service.ingest;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+
+public record PurchaseRow(String orderId,
+                          String sku,
+                          String productName,
+                          String category,
+                          int quantity,
+                          BigDecimal unitPrice,
+                          OffsetDateTime purchasedAt) {
+}
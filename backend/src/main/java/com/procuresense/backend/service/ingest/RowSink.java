@@ -0,0 +1,8 @@
+package com.procuresense.backend.service.ingest;
+
+public interface RowSink {
+
+    void accept(PurchaseRow row);
+
+    void reject(long recordNumber, String message);
+}
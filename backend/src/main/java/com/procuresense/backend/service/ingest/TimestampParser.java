@@ -0,0 +1,157 @@
+package com.procuresense.backend.service.ingest;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+
+// days and offsets are cached in racily written slots, which is safe because both are immutable;
+// shapes the fast path does not cover fall back to OffsetDateTime.parse
+final class TimestampParser {
+
+    private static final int DATE_CACHE_SIZE = 4096;
+    private static final int MAX_OFFSET_MINUTES = 18 * 60;
+
+    private final LocalDate[] dates = new LocalDate[DATE_CACHE_SIZE];
+    private final ZoneOffset[] offsets = new ZoneOffset[2 * MAX_OFFSET_MINUTES + 1];
+
+    OffsetDateTime parse(String value) {
+        int length = value.length();
+        if (length < 17 || !isDigits(value, 0, 4) || value.charAt(4) != '-') {
+            return definitelyInvalid(value) ? null : parseWithJdk(value);
+        }
+        if (value.charAt(7) != '-' || value.charAt(10) != 'T' || value.charAt(13) != ':'
+                || !isDigits(value, 5, 7) || !isDigits(value, 8, 10)
+                || !isDigits(value, 11, 13) || !isDigits(value, 14, 16)) {
+            return parseWithJdk(value);
+        }
+        int position = 16;
+        int second = 0;
+        int nanos = 0;
+        if (position < length && value.charAt(position) == ':') {
+            if (position + 3 > length || !isDigits(value, position + 1, position + 3)) {
+                return parseWithJdk(value);
+            }
+            second = twoDigits(value, position + 1);
+            position += 3;
+            if (position < length && value.charAt(position) == '.') {
+                int start = ++position;
+                while (position < length && position - start < 9 && isDigit(value.charAt(position))) {
+                    nanos = nanos * 10 + (value.charAt(position) - '0');
+                    position++;
+                }
+                int fractionDigits = position - start;
+                if (fractionDigits == 0) {
+                    return parseWithJdk(value);
+                }
+                for (int i = fractionDigits; i < 9; i++) {
+                    nanos *= 10;
+                }
+            }
+        }
+        ZoneOffset offset = offset(value, position);
+        if (offset == null) {
+            return parseWithJdk(value);
+        }
+
+        int year = fourDigits(value, 0);
+        int month = twoDigits(value, 5);
+        int day = twoDigits(value, 8);
+        int hour = twoDigits(value, 11);
+        int minute = twoDigits(value, 14);
+        if (month < 1 || month > 12 || day < 1 || day > lengthOfMonth(year, month)
+                || hour > 23 || minute > 59 || second > 59) {
+            return parseWithJdk(value);
+        }
+        return OffsetDateTime.of(date(year, month, day), LocalTime.of(hour, minute, second, nanos), offset);
+    }
+
+    private LocalDate date(int year, int month, int day) {
+        int slot = ((year * 12 + month) * 31 + day) & (DATE_CACHE_SIZE - 1);
+        LocalDate cached = dates[slot];
+        if (cached != null && cached.getDayOfMonth() == day && cached.getMonthValue() == month
+                && cached.getYear() == year) {
+            return cached;
+        }
+        LocalDate date = LocalDate.of(year, month, day);
+        dates[slot] = date;
+        return date;
+    }
+
+    private ZoneOffset offset(String value, int position) {
+        int remaining = value.length() - position;
+        if (remaining == 1 && value.charAt(position) == 'Z') {
+            return ZoneOffset.UTC;
+        }
+        char sign = remaining == 6 ? value.charAt(position) : 0;
+        if ((sign != '+' && sign != '-') || value.charAt(position + 3) != ':'
+                || !isDigits(value, position + 1, position + 3) || !isDigits(value, position + 4, position + 6)) {
+            return null;
+        }
+        int hours = twoDigits(value, position + 1);
+        int minutes = twoDigits(value, position + 4);
+        int totalMinutes = hours * 60 + minutes;
+        if (hours > 18 || minutes > 59 || totalMinutes > MAX_OFFSET_MINUTES) {
+            return null;
+        }
+        int signedMinutes = sign == '-' ? -totalMinutes : totalMinutes;
+        int slot = signedMinutes + MAX_OFFSET_MINUTES;
+        ZoneOffset cached = offsets[slot];
+        if (cached == null) {
+            cached = ZoneOffset.ofTotalSeconds(signedMinutes * 60);
+            offsets[slot] = cached;
+        }
+        return cached;
+    }
+
+    private static boolean definitelyInvalid(String value) {
+        if (value.isEmpty()) {
+            return true;
+        }
+        char first = value.charAt(0);
+        if (first == '+' || first == '-') {
+            return false;
+        }
+        if (value.length() < 4 || !isDigits(value, 0, 4)) {
+            return true;
+        }
+        return value.length() > 4 && !isDigit(value.charAt(4)) && value.charAt(4) != '-';
+    }
+
+    private static OffsetDateTime parseWithJdk(String value) {
+        try {
+            return OffsetDateTime.parse(value);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    private static int lengthOfMonth(int year, int month) {
+        return switch (month) {
+            case 2 -> (year % 4 == 0 && (year % 100 != 0 || year % 400 == 0)) ? 29 : 28;
+            case 4, 6, 9, 11 -> 30;
+            default -> 31;
+        };
+    }
+
+    private static boolean isDigits(String value, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (!isDigit(value.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static int twoDigits(String value, int from) {
+        return (value.charAt(from) - '0') * 10 + (value.charAt(from + 1) - '0');
+    }
+
+    private static int fourDigits(String value, int from) {
+        return twoDigits(value, from) * 100 + twoDigits(value, from + 2);
+    }
+}
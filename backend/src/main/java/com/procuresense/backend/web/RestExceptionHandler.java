@@ -1,6 +1,7 @@
 package com.procuresense.backend.web;
 
 import com.procuresense.backend.service.exception.CsvValidationException;
+import com.procuresense.backend.service.exception.ImportQueueFullException;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.HttpStatusCode;
@@ -22,6 +23,11 @@ public class RestExceptionHandler extends ResponseEntityExceptionHandler {
         return buildError(HttpStatus.BAD_REQUEST, ex.getMessage(), null);
     }
 
+    @ExceptionHandler(ImportQueueFullException.class)
+    public ResponseEntity<ApiError> handleImportQueueFull(ImportQueueFullException ex) {
+        return buildError(HttpStatus.SERVICE_UNAVAILABLE, ex.getMessage(), null);
+    }
+
     @ExceptionHandler(IllegalArgumentException.class)
     public ResponseEntity<ApiError> handleIllegalArgument(IllegalArgumentException ex) {
         return buildError(HttpStatus.BAD_REQUEST, ex.getMessage(), null);
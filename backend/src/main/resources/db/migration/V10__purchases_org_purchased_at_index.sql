@@ -0,0 +1,2 @@
+-- lets lookback-windowed reorder reads range-scan an org's recent purchases instead of its whole history
+create index if not exists idx_purchases_org_purchased_at on purchases (org_id, purchased_at);
@@ -0,0 +1,19 @@
+delete from purchases p
+using purchases d
+where d.org_id = p.org_id
+  and d.order_id = p.order_id
+  and d.product_id = p.product_id
+  and d.purchased_at = p.purchased_at
+  and d.id < p.id;
+
+create unique index if not exists uq_purchases_natural_key
+    on purchases (org_id, order_id, product_id, purchased_at);
+
+create table if not exists purchase_import_files (
+    id bigserial primary key,
+    org_id varchar(100) not null,
+    content_sha256 varchar(64) not null,
+    imported_rows integer not null,
+    imported_at timestamptz not null,
+    unique (org_id, content_sha256)
+);
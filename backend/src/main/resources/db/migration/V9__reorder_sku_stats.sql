@@ -0,0 +1,25 @@
+create table if not exists reorder_sku_stats (
+    id bigserial primary key,
+    org_id varchar(100) not null,
+    sku varchar(255) not null,
+    purchase_count integer not null,
+    last_purchase_at timestamptz not null,
+    last_quantity integer not null,
+    min_interval_days bigint,
+    max_interval_days bigint,
+    median_days_between bigint,
+    confidence double precision,
+    predicted_reorder_at timestamptz,
+    interval_histogram text not null,
+    unique (org_id, sku)
+);
+
+create index if not exists idx_reorder_sku_stats_org_predicted
+    on reorder_sku_stats (org_id, predicted_reorder_at);
+
+-- imports and rebuilds lock an org's state row before touching its stats rows; orgs that were never built
+-- get a row with a null built_at so there is always something to lock
+create table if not exists reorder_stats_state (
+    org_id varchar(100) primary key,
+    built_at timestamptz
+);
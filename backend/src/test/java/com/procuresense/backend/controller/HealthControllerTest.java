@@ -27,4 +27,15 @@ class HealthControllerTest {
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.status").value("UP"));
     }
+
+    @Test
+    void openAiEndpointReportsTheConnectionPool() throws Exception {
+        mockMvc.perform(get("/api/health/openai")
+                        .header("X-Org-Id", "test-org")
+                        .header("X-Role", "admin"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.circuitState").value("CLOSED"))
+                .andExpect(jsonPath("$.connections.max").value(20))
+                .andExpect(jsonPath("$.connections.leased").value(0));
+    }
 }
@@ -0,0 +1,109 @@
+package com.procuresense.backend.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.procuresense.backend.repository.PurchaseRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class PurchaseImportJobControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PurchaseRepository purchaseRepository;
+
+    @BeforeEach
+    void clearData() {
+        purchaseRepository.deleteAll();
+    }
+
+    @Test
+    void asyncImportReportsProgressUntilCompleted() throws Exception {
+        String csv = "order_id,sku,product_name,category,quantity,unit_price,purchased_at\n" +
+                "ORD-010,SKU-110,Lab Gloves,Safety,5,12.50,2024-01-01T10:00:00Z\n" +
+                "ORD-011,SKU-120,Boxes,Logistics,0,5.30,2024-01-05T09:30:00Z\n" +
+                "ORD-012,SKU-130,Labels,Logistics,2,4.50,2024-01-06T09:30:00Z";
+        MockMultipartFile file = new MockMultipartFile("file", "purchases.csv", "text/csv", csv.getBytes());
+
+        String body = mockMvc.perform(multipart("/api/purchases/imports")
+                        .file(file)
+                        .contentType(MediaType.MULTIPART_FORM_DATA)
+                        .header("X-Org-Id", "async-org")
+                        .header("X-Role", "admin"))
+                .andExpect(status().isAccepted())
+                .andExpect(header().exists("Location"))
+                .andExpect(jsonPath("$.jobId").isNotEmpty())
+                .andReturn().getResponse().getContentAsString();
+        String jobId = objectMapper.readTree(body).get("jobId").asText();
+
+        JsonNode job = awaitFinished(jobId, "async-org");
+
+        assertThat(job.get("status").asText()).isEqualTo("COMPLETED");
+        assertThat(job.get("rowsProcessed").asInt()).isEqualTo(3);
+        assertThat(job.get("importedRows").asInt()).isEqualTo(2);
+        assertThat(job.get("rejectedRows").asInt()).isEqualTo(1);
+        assertThat(job.get("sampleErrors").get(0).asText()).contains("quantity must be greater than zero");
+        assertThat(purchaseRepository.countByOrgId("async-org")).isEqualTo(2);
+    }
+
+    @Test
+    void jobsAreNotVisibleToOtherOrgs() throws Exception {
+        String csv = "order_id,sku,product_name,category,quantity,unit_price,purchased_at\n" +
+                "ORD-020,SKU-210,Tape,Logistics,1,3.10,2024-02-01T10:00:00Z";
+        MockMultipartFile file = new MockMultipartFile("file", "purchases.csv", "text/csv", csv.getBytes());
+
+        String body = mockMvc.perform(multipart("/api/purchases/imports")
+                        .file(file)
+                        .contentType(MediaType.MULTIPART_FORM_DATA)
+                        .header("X-Org-Id", "async-org")
+                        .header("X-Role", "admin"))
+                .andExpect(status().isAccepted())
+                .andReturn().getResponse().getContentAsString();
+        String jobId = objectMapper.readTree(body).get("jobId").asText();
+
+        mockMvc.perform(get("/api/purchases/imports/" + jobId)
+                        .header("X-Org-Id", "other-org")
+                        .header("X-Role", "admin"))
+                .andExpect(status().isNotFound());
+        awaitFinished(jobId, "async-org");
+    }
+
+    private JsonNode awaitFinished(String jobId, String orgId) throws Exception {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (true) {
+            String body = mockMvc.perform(get("/api/purchases/imports/" + jobId)
+                            .header("X-Org-Id", orgId)
+                            .header("X-Role", "admin"))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString();
+            JsonNode job = objectMapper.readTree(body);
+            String state = job.get("status").asText();
+            if ("COMPLETED".equals(state) || "FAILED".equals(state) || System.currentTimeMillis() > deadline) {
+                return job;
+            }
+            Thread.sleep(50);
+        }
+    }
+}
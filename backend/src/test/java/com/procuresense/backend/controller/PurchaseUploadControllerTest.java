@@ -6,13 +6,19 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPOutputStream;
+
 import static org.hamcrest.Matchers.containsString;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -81,4 +87,40 @@ class PurchaseUploadControllerTest {
                 .andExpect(status().isBadRequest())
                 .andExpect(jsonPath("$.message").value(containsString("Missing required columns")));
     }
+
+    @Test
+    void streamUploadImportsRawCsvBody() throws Exception {
+        String csv = "order_id,sku,product_name,category,quantity,unit_price,purchased_at\n" +
+                "ORD-006,SKU-600,Cable Ties,Logistics,8,2.10,2024-03-01T10:00:00Z\n" +
+                "ORD-007,SKU-600,Cable Ties,Logistics,0,2.10,2024-03-04T10:00:00Z";
+
+        mockMvc.perform(post("/api/purchases/upload/stream")
+                        .contentType("text/csv")
+                        .content(csv)
+                        .header("X-Org-Id", "test-org")
+                        .header("X-Role", "admin"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.importedRows").value(1))
+                .andExpect(jsonPath("$.rejectedRows").value(1))
+                .andExpect(jsonPath("$.sampleErrors[0]").value(containsString("Row 2")));
+    }
+
+    @Test
+    void streamUploadDecodesGzipContentEncoding() throws Exception {
+        String csv = "order_id,sku,product_name,category,quantity,unit_price,purchased_at\n" +
+                "ORD-008,SKU-700,Pallet Labels,Logistics,3,6.00,2024-03-02T10:00:00Z";
+        ByteArrayOutputStream gzipped = new ByteArrayOutputStream();
+        try (GZIPOutputStream out = new GZIPOutputStream(gzipped)) {
+            out.write(csv.getBytes(StandardCharsets.UTF_8));
+        }
+
+        mockMvc.perform(post("/api/purchases/upload/stream")
+                        .contentType("text/csv")
+                        .header(HttpHeaders.CONTENT_ENCODING, "gzip")
+                        .content(gzipped.toByteArray())
+                        .header("X-Org-Id", "test-org")
+                        .header("X-Role", "admin"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.importedRows").value(1));
+    }
 }
@@ -1,8 +1,10 @@
 package com.procuresense.backend.controller;
 
+import com.procuresense.backend.model.ReorderPage;
 import com.procuresense.backend.model.ReorderPrediction;
 import com.procuresense.backend.service.BundleRecommendationService;
 import com.procuresense.backend.service.DemoDataService;
+import com.procuresense.backend.service.PurchaseImportJobService;
 import com.procuresense.backend.service.PurchaseImportService;
 import com.procuresense.backend.service.ReorderExplanationService;
 import com.procuresense.backend.service.ReorderInsightService;
@@ -17,9 +19,11 @@ import org.springframework.test.web.servlet.MockMvc;
 import java.time.OffsetDateTime;
 import java.util.List;
 
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -38,6 +42,9 @@ class ReorderControllerTest {
     @MockBean
     private PurchaseImportService purchaseImportService;
 
+    @MockBean
+    private PurchaseImportJobService purchaseImportJobService;
+
     @MockBean
     private BundleRecommendationService bundleRecommendationService;
 
@@ -52,7 +59,8 @@ class ReorderControllerTest {
                 new ReorderPrediction("demo-org-a", "SKU-1", "Item 1", OffsetDateTime.parse("2024-01-05T00:00:00Z"), 10,
                         OffsetDateTime.parse("2024-01-15T00:00:00Z"), 0.9, 6, "")
         );
-        when(reorderInsightService.computePredictions(anyString())).thenReturn(predictions);
+        when(reorderInsightService.findPredictions(anyString(), anyInt(), Mockito.isNull(), Mockito.isNull()))
+                .thenReturn(new ReorderPage(predictions.subList(0, 1), "next-page"));
         when(reorderExplanationService.enrich(Mockito.anyList(), Mockito.anyBoolean()))
                 .thenAnswer(invocation -> invocation.getArgument(0));
 
@@ -63,9 +71,10 @@ class ReorderControllerTest {
                         .accept(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$[0].sku").value("SKU-2"))
-                .andExpect(jsonPath("$", org.hamcrest.Matchers.hasSize(1)));
+                .andExpect(jsonPath("$", org.hamcrest.Matchers.hasSize(1)))
+                .andExpect(header().string("X-Next-Cursor", "next-page"));
 
-        Mockito.verify(reorderInsightService).computePredictions("demo-org-a");
+        Mockito.verify(reorderInsightService).findPredictions("demo-org-a", 1, null, null);
         Mockito.verify(reorderExplanationService).enrich(Mockito.anyList(), Mockito.eq(false));
     }
 }
@@ -17,12 +17,12 @@ import org.springframework.test.context.ActiveProfiles;
 
 import java.math.BigDecimal;
 import java.time.OffsetDateTime;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
-import static org.mockito.ArgumentMatchers.anyLong;
-import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.anyList;
 
 @SpringBootTest
 @ActiveProfiles("test")
@@ -64,8 +64,8 @@ class BundleRecommendationCacheTest {
         insertPurchase("demo-org-a", "ORD-901", cups, "2024-05-03T09:00:00Z");
         insertPurchase("demo-org-a", "ORD-901", cutlery, "2024-05-03T09:02:00Z");
 
-        Mockito.when(openAiClient.generateBundleRationale(anyString(), anyString(), anyString(), anyString(), anyLong()))
-                .thenReturn(Optional.of("AI says they pair nicely."));
+        Mockito.when(openAiClient.generateBundleRationales(anyList()))
+                .thenReturn(List.of(Optional.of("AI says they pair nicely.")));
 
         List<BundleRecommendation> first = bundleRecommendationService.getBundlesForSku("demo-org-a", "SKU-5001");
         assertThat(first).isNotEmpty();
@@ -76,8 +76,24 @@ class BundleRecommendationCacheTest {
         List<BundleRecommendation> second = bundleRecommendationService.getBundlesForSku("demo-org-a", "SKU-5001");
         assertThat(second.get(0).rationale()).isEqualTo("AI says they pair nicely.");
 
-        Mockito.verify(openAiClient, Mockito.times(1))
-                .generateBundleRationale(anyString(), anyString(), anyString(), anyString(), anyLong());
+        Mockito.verify(openAiClient, Mockito.times(1)).generateBundleRationales(anyList());
+    }
+
+    @Test
+    void rationaleRefusedByTheRateLimiterIsServedAsFallbackWithoutBeingStored() {
+        Product cups = saveProduct("SKU-5001", "Biodegradable Cups");
+        Product cutlery = saveProduct("SKU-9001", "Compostable Cutlery");
+        insertPurchase("demo-org-a", "ORD-900", cups, "2024-05-01T10:00:00Z");
+        insertPurchase("demo-org-a", "ORD-900", cutlery, "2024-05-01T10:01:00Z");
+
+        Mockito.when(openAiClient.generateBundleRationales(anyList()))
+                .thenAnswer(invocation -> Collections.nCopies(invocation.<List<?>>getArgument(0).size(), null));
+
+        List<BundleRecommendation> bundles = bundleRecommendationService.getBundlesForSku("demo-org-a", "SKU-5001");
+
+        assertThat(bundles).singleElement().extracting(BundleRecommendation::rationale).asString()
+                .startsWith("Compostable Cutlery is ordered alongside Biodegradable Cups");
+        assertThat(bundleInsightRepository.count()).isZero();
     }
 
     private Product saveProduct(String sku, String name) {
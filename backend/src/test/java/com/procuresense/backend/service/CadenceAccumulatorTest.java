@@ -0,0 +1,79 @@
+package com.procuresense.backend.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CadenceAccumulatorTest {
+
+    @Test
+    void matchesSortBasedStatisticsOverDurationIntervals() {
+        SplittableRandom random = new SplittableRandom(7);
+        CadenceAccumulator cadence = new CadenceAccumulator();
+        for (int sku = 0; sku < 500; sku++) {
+            int purchases = 2 + random.nextInt(40);
+            // few distinct gaps produce long runs of equal intervals; sub-second offsets probe Duration truncation
+            long gapSeconds = 86_400L * (1 + random.nextInt(3)) - random.nextInt(2);
+            OffsetDateTime at = OffsetDateTime.of(2024, 1, 1, 8, 0, 0, random.nextInt(1_000_000_000), ZoneOffset.UTC);
+            List<OffsetDateTime> timestamps = new ArrayList<>();
+            for (int i = 0; i < purchases; i++) {
+                timestamps.add(at);
+                at = at.plusSeconds(random.nextInt(4) == 0 ? random.nextLong(40 * 86_400L) : gapSeconds)
+                        .plusNanos(random.nextInt(1_000_000_000) - 500_000_000L);
+            }
+            timestamps.sort(null);
+
+            List<Long> intervals = new ArrayList<>();
+            for (int i = 1; i < timestamps.size(); i++) {
+                intervals.add(Math.max(1, Duration.between(timestamps.get(i - 1), timestamps.get(i)).toDays()));
+            }
+            List<Long> sorted = new ArrayList<>(intervals);
+            Collections.sort(sorted);
+            int size = sorted.size();
+            long expectedMedian = size % 2 == 1
+                    ? sorted.get(size / 2)
+                    : Math.round((sorted.get(size / 2 - 1) + sorted.get(size / 2)) / 2.0);
+
+            cadence.reset();
+            timestamps.forEach(cadence::addPurchase);
+
+            assertThat(cadence.intervalCount()).isEqualTo(size);
+            assertThat(cadence.minDays()).isEqualTo(sorted.get(0));
+            assertThat(cadence.maxDays()).isEqualTo(sorted.get(size - 1));
+            assertThat(cadence.medianDays()).as("sku %d %s", sku, intervals).isEqualTo(expectedMedian);
+        }
+    }
+
+    @Test
+    void intervalHistogramMatchesTheAccumulatorAcrossEncodeRoundTrips() {
+        SplittableRandom random = new SplittableRandom(11);
+        CadenceAccumulator cadence = new CadenceAccumulator();
+        for (int sku = 0; sku < 500; sku++) {
+            int intervals = 1 + random.nextInt(60);
+            IntervalHistogram histogram = new IntervalHistogram();
+            cadence.reset();
+            for (int i = 0; i < intervals; i++) {
+                long days = random.nextInt(3) == 0 ? 1 + random.nextInt(90) : 7 * (1 + random.nextInt(2));
+                cadence.addInterval(days);
+                // a stats row is decoded, extended and re-encoded by every import that touches it
+                histogram = IntervalHistogram.decode(histogram.encode());
+                histogram.add(days);
+            }
+
+            assertThat(histogram.intervalCount()).isEqualTo(cadence.intervalCount());
+            assertThat(histogram.minDays()).isEqualTo(cadence.minDays());
+            assertThat(histogram.maxDays()).isEqualTo(cadence.maxDays());
+            assertThat(histogram.confidence()).isEqualTo(cadence.confidence());
+            assertThat(histogram.medianDays()).as("sku %d %s", sku, histogram.encode()).isEqualTo(cadence.medianDays());
+        }
+        assertThat(IntervalHistogram.decode("").intervalCount()).isZero();
+    }
+}
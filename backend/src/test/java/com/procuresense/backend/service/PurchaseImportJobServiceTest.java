@@ -0,0 +1,63 @@
+package com.procuresense.backend.service;
+
+import com.procuresense.backend.config.PurchaseImportProperties;
+import com.procuresense.backend.model.PurchaseImportJobResponse;
+import com.procuresense.backend.model.PurchaseImportJobResponse.Status;
+import com.procuresense.backend.model.PurchaseImportResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.time.Clock;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+class PurchaseImportJobServiceTest {
+
+    private final PurchaseImportService importService = Mockito.mock(PurchaseImportService.class);
+    private final PurchaseImportJobService jobService = new PurchaseImportJobService(importService,
+            Clock.systemUTC(), new PurchaseImportProperties(0, 0, new PurchaseImportProperties.Async(1, 2, null)));
+
+    @AfterEach
+    void shutdown() {
+        jobService.shutdown();
+    }
+
+    @Test
+    void jobThatThrowsAnErrorFailsAndTheOrgsQueuedJobsStillRun() throws Exception {
+        when(importService.importCsv(any(), any(), eq("org-1"), anyString(), any()))
+                .thenThrow(new OutOfMemoryError("Java heap space"))
+                .thenReturn(new PurchaseImportResponse(1, 0, 0, false, List.of()));
+
+        PurchaseImportJobResponse first = jobService.submit(csv(), "org-1");
+        PurchaseImportJobResponse second = jobService.submit(csv(), "org-1");
+
+        assertThat(awaitFinished(first.jobId()).status()).isEqualTo(Status.FAILED);
+        PurchaseImportJobResponse finished = awaitFinished(second.jobId());
+        assertThat(finished.status()).isEqualTo(Status.COMPLETED);
+        assertThat(finished.importedRows()).isEqualTo(1);
+    }
+
+    private MockMultipartFile csv() {
+        return new MockMultipartFile("file", "purchases.csv", "text/csv",
+                "order_id,sku,product_name,category,quantity,unit_price,purchased_at\n".getBytes());
+    }
+
+    private PurchaseImportJobResponse awaitFinished(String jobId) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (true) {
+            PurchaseImportJobResponse job = jobService.findJob(jobId, "org-1").orElseThrow();
+            if (job.status() == Status.COMPLETED || job.status() == Status.FAILED
+                    || System.currentTimeMillis() > deadline) {
+                return job;
+            }
+            Thread.sleep(20);
+        }
+    }
+}
@@ -1,10 +1,15 @@
 package com.procuresense.backend.service;
 
+import com.procuresense.backend.model.Product;
 import com.procuresense.backend.model.Purchase;
 import com.procuresense.backend.model.PurchaseImportResponse;
+import com.procuresense.backend.model.ReorderPrediction;
 import com.procuresense.backend.repository.ProductRepository;
+import com.procuresense.backend.repository.PurchaseImportFileRepository;
 import com.procuresense.backend.repository.PurchaseLoadAuditRepository;
 import com.procuresense.backend.repository.PurchaseRepository;
+import com.procuresense.backend.service.exception.CsvValidationException;
+import io.airlift.compress.zstd.ZstdOutputStream;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -12,12 +17,23 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.test.context.ActiveProfiles;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.SequenceInputStream;
+import java.math.BigDecimal;
 import java.nio.charset.StandardCharsets;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.zip.GZIPOutputStream;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
-@SpringBootTest
+@SpringBootTest(properties = "purchase.import.chunk-size=2")
 @ActiveProfiles("test")
 class PurchaseImportServiceTest {
 
@@ -27,6 +43,9 @@ class PurchaseImportServiceTest {
     @Autowired
     private PurchaseRepository purchaseRepository;
 
+    @Autowired
+    private PurchaseImportFileRepository purchaseImportFileRepository;
+
     @Autowired
     private ProductRepository productRepository;
 
@@ -36,11 +55,15 @@ class PurchaseImportServiceTest {
     @Autowired
     private PurchaseLoadAuditRepository purchaseLoadAuditRepository;
 
+    @Autowired
+    private ReorderInsightService reorderInsightService;
+
     @BeforeEach
     void cleanDb() {
         purchaseRepository.deleteAll();
         productRepository.deleteAll();
         purchaseLoadAuditRepository.deleteAll();
+        purchaseImportFileRepository.deleteAll();
     }
 
     @Test
@@ -69,4 +92,185 @@ class PurchaseImportServiceTest {
 
         assertThat(purchaseLoadAuditService.getLastLoadedAt("demo-org-a")).isNotNull();
     }
+
+    @Test
+    void importCsvFlushesInChunksAndKeepsCountersAcrossChunks() {
+        String csv = """
+                order_id,sku,product_name,category,quantity,unit_price,purchased_at
+                ORD-200,SKU-3001,Floor Wax,Cleaning,1,11.00,2024-03-01T09:00:00Z
+                ORD-200,SKU-3002,Mop Heads,Cleaning,3,4.25,2024-03-01T09:00:00Z
+                ORD-201,SKU-3001,Floor Wax,Cleaning,0,11.00,2024-03-08T09:00:00Z
+                ORD-201,SKU-3001,Floor Wax,Cleaning,2,11.00,2024-03-08T09:00:00Z
+                ORD-202,SKU-3003,Buckets,Cleaning,1,not-a-price,2024-03-15T09:00:00Z
+                ORD-202,SKU-3002,Mop Heads,Cleaning,5,4.25,2024-03-15T09:00:00Z
+                ORD-203,SKU-3003,Buckets,Cleaning,1,9.90,2024-03-22T09:00:00Z
+                """;
+        MockMultipartFile file = new MockMultipartFile(
+                "file",
+                "purchases.csv",
+                "text/csv",
+                csv.getBytes(StandardCharsets.UTF_8));
+
+        PurchaseImportResponse response = purchaseImportService.importCsv(file, "demo-org-b");
+
+        assertThat(response.importedRows()).isEqualTo(5);
+        assertThat(response.rejectedRows()).isEqualTo(2);
+        assertThat(response.sampleErrors()).containsExactly(
+                "Row 3: quantity must be greater than zero",
+                "Row 5: unit_price must be numeric");
+        assertThat(purchaseRepository.countByOrgId("demo-org-b")).isEqualTo(5);
+        assertThat(productRepository.findAll())
+                .extracting(Product::getSku)
+                .containsExactlyInAnyOrder("SKU-3001", "SKU-3002", "SKU-3003");
+    }
+
+    @Test
+    void importCsvReusesExistingProductsAndAppliesChangedAttributes() {
+        Product unchanged = productRepository.save(buildProduct("SKU-4001", "Pallet Wrap", "Logistics", "14.00"));
+        Product renamed = productRepository.save(buildProduct("SKU-4002", "Tape", "Logistics", "3.00"));
+        String csv = """
+                order_id,sku,product_name,category,quantity,unit_price,purchased_at
+                ORD-300,SKU-4001,Pallet Wrap,Logistics,1,14.00,2024-04-01T09:00:00Z
+                ORD-300,SKU-4002,Packing Tape,Logistics,6,3.25,2024-04-01T09:00:00Z
+                ORD-301,SKU-4003,Box Cutter,Tools,2,8.00,2024-04-02T09:00:00Z
+                """;
+        MockMultipartFile file = new MockMultipartFile(
+                "file",
+                "purchases.csv",
+                "text/csv",
+                csv.getBytes(StandardCharsets.UTF_8));
+
+        PurchaseImportResponse response = purchaseImportService.importCsv(file, "demo-org-c");
+
+        assertThat(response.importedRows()).isEqualTo(3);
+        assertThat(productRepository.count()).isEqualTo(3);
+        assertThat(productRepository.findBySku("SKU-4001")).get()
+                .extracting(Product::getId, Product::getName)
+                .containsExactly(unchanged.getId(), "Pallet Wrap");
+        Product updated = productRepository.findBySku("SKU-4002").orElseThrow();
+        assertThat(updated.getId()).isEqualTo(renamed.getId());
+        assertThat(updated.getName()).isEqualTo("Packing Tape");
+        assertThat(updated.getUnitPrice()).isEqualByComparingTo("3.25");
+    }
+
+    @Test
+    void importCsvDecompressesGzipAndZstdUploads() throws IOException {
+        String csv = """
+                order_id,sku,product_name,category,quantity,unit_price,purchased_at
+                ORD-400,SKU-5001,Shrink Film,Logistics,2,12.00,2024-05-01T09:00:00Z
+                ORD-401,SKU-5001,Shrink Film,Logistics,1,12.00,2024-05-09T09:00:00Z
+                """;
+        ByteArrayOutputStream gzipped = new ByteArrayOutputStream();
+        try (OutputStream out = new GZIPOutputStream(gzipped)) {
+            out.write(csv.getBytes(StandardCharsets.UTF_8));
+        }
+        ByteArrayOutputStream zstd = new ByteArrayOutputStream();
+        try (OutputStream out = new ZstdOutputStream(zstd)) {
+            out.write(csv.getBytes(StandardCharsets.UTF_8));
+        }
+
+        PurchaseImportResponse gzipResponse = purchaseImportService.importCsv(new MockMultipartFile(
+                "file", "purchases.csv.gz", "application/gzip", gzipped.toByteArray()), "demo-org-d");
+        PurchaseImportResponse zstdResponse = purchaseImportService.importCsv(new MockMultipartFile(
+                "file", "purchases.csv.zst", "application/octet-stream", zstd.toByteArray()), "demo-org-e");
+
+        assertThat(gzipResponse.importedRows()).isEqualTo(2);
+        assertThat(zstdResponse.importedRows()).isEqualTo(2);
+        assertThat(purchaseRepository.countByOrgId("demo-org-d")).isEqualTo(2);
+        assertThat(purchaseRepository.countByOrgId("demo-org-e")).isEqualTo(2);
+    }
+
+    @Test
+    void reimportSkipsIdenticalFilesAndDedupesOverlappingRows() {
+        String first = """
+                order_id,sku,product_name,category,quantity,unit_price,purchased_at
+                ORD-500,SKU-6001,Stretch Film,Logistics,2,12.00,2024-06-01T09:00:00Z
+                ORD-501,SKU-6002,Corner Boards,Logistics,4,1.50,2024-06-02T09:00:00Z
+                ORD-501,SKU-6002,Corner Boards,Logistics,4,1.50,2024-06-02T09:00:00Z
+                """;
+        String overlapping = """
+                order_id,sku,product_name,category,quantity,unit_price,purchased_at
+                ORD-501,SKU-6002,Corner Boards,Logistics,4,1.50,2024-06-02T11:00:00+02:00
+                ORD-502,SKU-6001,Stretch Film,Logistics,1,12.00,2024-06-03T09:00:00Z
+                """;
+
+        PurchaseImportResponse initial = purchaseImportService.importCsv(csvFile(first), "demo-org-f");
+        PurchaseImportResponse retried = purchaseImportService.importCsv(csvFile(first), "demo-org-f");
+        PurchaseImportResponse overlap = purchaseImportService.importCsv(csvFile(overlapping), "demo-org-f");
+
+        assertThat(initial.importedRows()).isEqualTo(2);
+        assertThat(initial.duplicateRows()).isEqualTo(1);
+        assertThat(retried.fileAlreadyImported()).isTrue();
+        assertThat(retried.importedRows()).isZero();
+        assertThat(overlap.importedRows()).isEqualTo(1);
+        assertThat(overlap.duplicateRows()).isEqualTo(1);
+        assertThat(overlap.fileAlreadyImported()).isFalse();
+        assertThat(purchaseRepository.countByOrgId("demo-org-f")).isEqualTo(3);
+    }
+
+    @Test
+    void importCsvReportsProgressWhileRowsAreBeingRejected() {
+        String csv = """
+                order_id,sku,product_name,category,quantity,unit_price,purchased_at
+                ORD-600,SKU-7001,Pallet Labels,Logistics,0,3.00,2024-07-01T09:00:00Z
+                ORD-601,SKU-7001,Pallet Labels,Logistics,0,3.00,2024-07-02T09:00:00Z
+                ORD-602,SKU-7001,Pallet Labels,Logistics,0,3.00,2024-07-03T09:00:00Z
+                ORD-603,SKU-7001,Pallet Labels,Logistics,0,3.00,2024-07-04T09:00:00Z
+                ORD-604,SKU-7001,Pallet Labels,Logistics,0,3.00,2024-07-05T09:00:00Z
+                ORD-605,SKU-7001,Pallet Labels,Logistics,2,3.00,2024-07-06T09:00:00Z
+                """;
+        List<List<Integer>> progress = new ArrayList<>();
+
+        purchaseImportService.importCsv(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), "text/csv",
+                "demo-org-g", null, (imported, rejected, duplicates) -> progress.add(List.of(imported, rejected, duplicates)));
+
+        assertThat(progress).containsExactly(List.of(0, 2, 0), List.of(0, 4, 0), List.of(1, 5, 0));
+    }
+
+    @Test
+    void importFailingMidFileStillRefreshesPredictionsForCommittedChunks() {
+        purchaseImportService.importCsv(csvFile("""
+                order_id,sku,product_name,category,quantity,unit_price,purchased_at
+                ORD-700,SKU-8001,Pallet Nails,Hardware,1,2.00,2024-08-01T09:00:00Z
+                ORD-701,SKU-8001,Pallet Nails,Hardware,1,2.00,2024-08-08T09:00:00Z
+                """), "demo-org-h");
+        assertThat(reorderInsightService.computePredictions("demo-org-h"))
+                .extracting(ReorderPrediction::lastPurchaseAt)
+                .containsExactly(OffsetDateTime.parse("2024-08-08T09:00:00Z"));
+
+        String committedChunk = """
+                order_id,sku,product_name,category,quantity,unit_price,purchased_at
+                ORD-702,SKU-8001,Pallet Nails,Hardware,1,2.00,2024-08-15T09:00:00Z
+                ORD-703,SKU-8001,Pallet Nails,Hardware,1,2.00,2024-08-22T09:00:00Z
+                """;
+        InputStream failing = new SequenceInputStream(
+                new ByteArrayInputStream(committedChunk.getBytes(StandardCharsets.UTF_8)),
+                new InputStream() {
+                    @Override
+                    public int read() throws IOException {
+                        throw new IOException("connection reset");
+                    }
+                });
+
+        assertThatThrownBy(() -> purchaseImportService.importCsv(failing, "text/csv", "demo-org-h", null,
+                ImportProgressListener.NONE)).isInstanceOf(CsvValidationException.class);
+
+        assertThat(purchaseRepository.countByOrgId("demo-org-h")).isEqualTo(4);
+        assertThat(reorderInsightService.computePredictions("demo-org-h"))
+                .extracting(ReorderPrediction::lastPurchaseAt)
+                .containsExactly(OffsetDateTime.parse("2024-08-22T09:00:00Z"));
+    }
+
+    private MockMultipartFile csvFile(String csv) {
+        return new MockMultipartFile("file", "purchases.csv", "text/csv", csv.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private Product buildProduct(String sku, String name, String category, String unitPrice) {
+        Product product = new Product();
+        product.setSku(sku);
+        product.setName(name);
+        product.setCategory(category);
+        product.setUnitPrice(new BigDecimal(unitPrice));
+        return product;
+    }
 }
@@ -0,0 +1,75 @@
+package com.procuresense.backend.service;
+
+import com.procuresense.backend.model.ReorderInsight;
+import com.procuresense.backend.model.ReorderPrediction;
+import com.procuresense.backend.repository.ReorderInsightRepository;
+import com.procuresense.backend.service.ai.OpenAiClient;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class ReorderExplanationCacheTest {
+
+    @Autowired
+    private ReorderExplanationService reorderExplanationService;
+
+    @Autowired
+    private ReorderInsightRepository reorderInsightRepository;
+
+    @MockBean
+    private OpenAiClient openAiClient;
+
+    @BeforeEach
+    void setup() {
+        reorderInsightRepository.deleteAll();
+    }
+
+    @Test
+    void upsertsOnlyPredictionsWhoseFingerprintChanged() {
+        answerEveryPrompt("First explanation");
+        ReorderPrediction towels = prediction("SKU-1", 10);
+        ReorderPrediction gloves = prediction("SKU-2", 7);
+
+        reorderExplanationService.enrich(List.of(towels, gloves));
+        assertThat(reorderInsightRepository.count()).isEqualTo(2);
+
+        answerEveryPrompt("Second explanation");
+        List<ReorderPrediction> enriched = reorderExplanationService.enrich(List.of(towels, prediction("SKU-2", 9)));
+
+        assertThat(enriched).extracting(ReorderPrediction::explanation)
+                .containsExactly("First explanation", "Second explanation");
+        assertThat(reorderInsightRepository.count()).isEqualTo(2);
+        ReorderInsight updated = reorderInsightRepository.findByOrgIdAndSkuIn("demo-org-a", Set.of("SKU-2")).get(0);
+        assertThat(updated.getMedianDaysBetween()).isEqualTo(9);
+        assertThat(updated.getExplanationText()).isEqualTo("Second explanation");
+        // the first page goes out as one batch, the second only carries the changed prediction
+        Mockito.verify(openAiClient, Mockito.times(2)).generateReorderExplanations(anyList());
+    }
+
+    private void answerEveryPrompt(String explanation) {
+        Mockito.when(openAiClient.generateReorderExplanations(anyList())).thenAnswer(invocation -> {
+            List<?> prompts = invocation.getArgument(0);
+            return prompts.stream().map(prompt -> Optional.of(explanation)).toList();
+        });
+    }
+
+    private ReorderPrediction prediction(String sku, long medianDays) {
+        OffsetDateTime last = OffsetDateTime.parse("2024-01-20T12:00:00Z");
+        return new ReorderPrediction("demo-org-a", sku, "Item " + sku, last, medianDays, last.plusDays(medianDays),
+                0.8, 4, null);
+    }
+}
@@ -3,7 +3,10 @@ package com.procuresense.backend.service;
 import com.procuresense.backend.model.ReorderInsight;
 import com.procuresense.backend.model.ReorderPrediction;
 import com.procuresense.backend.repository.ReorderInsightRepository;
+import com.procuresense.backend.service.ai.OpenAiCallExecutor;
 import com.procuresense.backend.service.ai.OpenAiClient;
+import com.procuresense.backend.service.ai.OpenAiRefreshQueue;
+import com.procuresense.backend.service.ai.ReorderExplanationPrompt;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 
@@ -11,11 +14,17 @@ import java.time.Clock;
 import java.time.Instant;
 import java.time.OffsetDateTime;
 import java.time.ZoneOffset;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -24,29 +33,32 @@ class ReorderExplanationServiceTest {
     private final OpenAiClient openAiClient = Mockito.mock(OpenAiClient.class);
     private final Clock fixedClock = Clock.fixed(Instant.parse("2024-02-01T00:00:00Z"), ZoneOffset.UTC);
     private final ReorderInsightRepository reorderInsightRepository = Mockito.mock(ReorderInsightRepository.class);
-    private final ReorderExplanationService service = new ReorderExplanationService(openAiClient, fixedClock, reorderInsightRepository);
+    private final ReorderExplanationService service = new ReorderExplanationService(openAiClient, fixedClock,
+            reorderInsightRepository, new OpenAiCallExecutor(4, 10), new OpenAiRefreshQueue(false, 0, 0));
 
     @Test
     void enrichUsesGeneratedExplanationWhenAvailable() {
         ReorderPrediction basePrediction = samplePrediction();
-        when(openAiClient.generateReorderExplanation(basePrediction, 9))
-                .thenReturn(Optional.of("Assistant explanation"));
-        when(reorderInsightRepository.findByOrgIdAndSku("demo-org-a", "SKU-42"))
-                .thenReturn(Optional.empty());
+        when(openAiClient.generateReorderExplanations(List.of(new ReorderExplanationPrompt(basePrediction, 9))))
+                .thenReturn(List.of(Optional.of("Assistant explanation")));
+        when(reorderInsightRepository.findByOrgIdAndSkuIn("demo-org-a", Set.of("SKU-42")))
+                .thenReturn(List.of());
 
         List<ReorderPrediction> enriched = service.enrich(List.of(basePrediction));
 
         assertThat(enriched).hasSize(1);
         assertThat(enriched.get(0).explanation()).isEqualTo("Assistant explanation");
-        verify(reorderInsightRepository).save(Mockito.any(ReorderInsight.class));
+        verify(reorderInsightRepository).upsertAll(Mockito.argThat(insights -> insights.size() == 1
+                && "Assistant explanation".equals(insights.iterator().next().getExplanationText())));
     }
 
     @Test
     void enrichFallsBackToDeterministicExplanation() {
         ReorderPrediction basePrediction = samplePrediction();
-        when(openAiClient.generateReorderExplanation(basePrediction, 9)).thenReturn(Optional.empty());
-        when(reorderInsightRepository.findByOrgIdAndSku("demo-org-a", "SKU-42"))
-                .thenReturn(Optional.empty());
+        when(openAiClient.generateReorderExplanations(List.of(new ReorderExplanationPrompt(basePrediction, 9))))
+                .thenReturn(List.of(Optional.empty()));
+        when(reorderInsightRepository.findByOrgIdAndSkuIn("demo-org-a", Set.of("SKU-42")))
+                .thenReturn(List.of());
 
         List<ReorderPrediction> enriched = service.enrich(List.of(basePrediction));
 
@@ -65,14 +77,128 @@ class ReorderExplanationServiceTest {
         cached.setSku("SKU-42");
         cached.setFingerprint(buildFingerprint(basePrediction));
         cached.setExplanationText("Cached insight");
-        when(reorderInsightRepository.findByOrgIdAndSku("demo-org-a", "SKU-42"))
-                .thenReturn(Optional.of(cached));
+        when(reorderInsightRepository.findByOrgIdAndSkuIn("demo-org-a", Set.of("SKU-42")))
+                .thenReturn(List.of(cached));
 
         List<ReorderPrediction> enriched = service.enrich(List.of(basePrediction));
 
         assertThat(enriched.get(0).explanation()).isEqualTo("Cached insight");
-        verify(openAiClient, never()).generateReorderExplanation(Mockito.any(), Mockito.anyLong());
-        verify(reorderInsightRepository, never()).save(Mockito.any());
+        verify(openAiClient, never()).generateReorderExplanations(Mockito.anyList());
+        verify(reorderInsightRepository, never()).upsertAll(Mockito.any());
+    }
+
+    @Test
+    void enrichFallsBackWithoutGeneratingWhileTheCircuitIsOpen() {
+        ReorderPrediction basePrediction = samplePrediction();
+        when(openAiClient.isCircuitOpen()).thenReturn(true);
+        when(reorderInsightRepository.findByOrgIdAndSkuIn("demo-org-a", Set.of("SKU-42")))
+                .thenReturn(List.of());
+
+        List<ReorderPrediction> enriched = service.enrich(List.of(basePrediction));
+
+        assertThat(enriched.get(0).explanation()).contains("Eco Towels was last purchased on 2024-01-20");
+        verify(openAiClient, never()).generateReorderExplanations(Mockito.anyList());
+        verify(reorderInsightRepository, never()).upsertAll(Mockito.any());
+    }
+
+    @Test
+    void enrichGeneratesBatchesConcurrentlyAndKeepsTheirOrder() {
+        ReorderExplanationService batchesOfTwo = new ReorderExplanationService(openAiClient, fixedClock,
+                reorderInsightRepository, new OpenAiCallExecutor(4, 2), new OpenAiRefreshQueue(false, 0, 0));
+        List<ReorderPrediction> predictions = List.of(samplePrediction("SKU-1"), samplePrediction("SKU-2"),
+                samplePrediction("SKU-3"), samplePrediction("SKU-4"), samplePrediction("SKU-5"));
+        CountDownLatch allStarted = new CountDownLatch(3);
+        when(openAiClient.generateReorderExplanations(Mockito.anyList())).thenAnswer(invocation -> {
+            List<ReorderExplanationPrompt> prompts = invocation.getArgument(0);
+            allStarted.countDown();
+            // only completes when every batch is in flight at the same time; the later batches finish first
+            assertThat(allStarted.await(5, TimeUnit.SECONDS)).isTrue();
+            Thread.sleep(10L * (6 - Integer.parseInt(prompts.get(0).prediction().sku().substring(4))));
+            // the model skips the second item of each batch, which then falls back on its own
+            return prompts.stream()
+                    .map(prompt -> prompt == prompts.get(0)
+                            ? Optional.of("Explanation for " + prompt.prediction().sku())
+                            : Optional.<String>empty())
+                    .toList();
+        });
+        when(reorderInsightRepository.findByOrgIdAndSkuIn(Mockito.eq("demo-org-a"), Mockito.anySet()))
+                .thenReturn(List.of());
+
+        List<ReorderPrediction> enriched = batchesOfTwo.enrich(predictions);
+
+        assertThat(enriched).extracting(ReorderPrediction::sku)
+                .containsExactly("SKU-1", "SKU-2", "SKU-3", "SKU-4", "SKU-5");
+        assertThat(enriched).extracting(ReorderPrediction::explanation)
+                .startsWith("Explanation for SKU-1")
+                .contains("Explanation for SKU-3", "Explanation for SKU-5");
+        assertThat(enriched.get(1).explanation()).contains("Eco Towels was last purchased on 2024-01-20");
+        verify(openAiClient, Mockito.times(3)).generateReorderExplanations(Mockito.anyList());
+        verify(reorderInsightRepository).upsertAll(Mockito.argThat(insights -> insights.size() == 5));
+    }
+
+    @Test
+    void itemsRefusedByAnExhaustedRateLimiterMidPageAreServedTheFallbackWithoutBeingStored() {
+        ReorderExplanationService oneAtATime = new ReorderExplanationService(openAiClient, fixedClock,
+                reorderInsightRepository, new OpenAiCallExecutor(1, 1), new OpenAiRefreshQueue(false, 0, 0));
+        List<ReorderPrediction> predictions = List.of(samplePrediction("SKU-1"), samplePrediction("SKU-2"),
+                samplePrediction("SKU-3"));
+        AtomicInteger tokens = new AtomicInteger(1);
+        when(openAiClient.generateReorderExplanations(Mockito.anyList())).thenAnswer(invocation -> {
+            List<ReorderExplanationPrompt> prompts = invocation.getArgument(0);
+            if (tokens.getAndDecrement() <= 0) {
+                return Collections.nCopies(prompts.size(), null);
+            }
+            return List.of(Optional.of("Explanation for " + prompts.get(0).prediction().sku()));
+        });
+        when(reorderInsightRepository.findByOrgIdAndSkuIn(Mockito.eq("demo-org-a"), Mockito.anySet()))
+                .thenReturn(List.of());
+
+        List<ReorderPrediction> enriched = oneAtATime.enrich(predictions);
+
+        assertThat(enriched).extracting(ReorderPrediction::explanation)
+                .filteredOn(explanation -> explanation.startsWith("Explanation for")).hasSize(1);
+        assertThat(enriched).extracting(ReorderPrediction::explanation)
+                .filteredOn(explanation -> explanation.contains("Eco Towels was last purchased on")).hasSize(2);
+        verify(reorderInsightRepository).upsertAll(Mockito.argThat(insights -> insights.size() == 1
+                && insights.iterator().next().getExplanationText().startsWith("Explanation for")));
+
+        // once every call is refused nothing is written at all
+        Mockito.clearInvocations(reorderInsightRepository);
+        oneAtATime.enrich(predictions);
+        verify(reorderInsightRepository, never()).upsertAll(Mockito.any());
+    }
+
+    @Test
+    void backgroundRefreshServesPreviousTextAndRegeneratesEachStaleKeyOnce() {
+        OpenAiRefreshQueue refreshQueue = new OpenAiRefreshQueue(true, 1, 100);
+        ReorderExplanationService background = new ReorderExplanationService(openAiClient, fixedClock,
+                reorderInsightRepository, new OpenAiCallExecutor(4, 10), refreshQueue);
+        ReorderPrediction basePrediction = samplePrediction();
+        ReorderInsight previous = new ReorderInsight();
+        previous.setOrgId("demo-org-a");
+        previous.setSku("SKU-42");
+        previous.setFingerprint("outdated");
+        previous.setExplanationText("Previous insight");
+        when(reorderInsightRepository.findByOrgIdAndSkuIn("demo-org-a", Set.of("SKU-42")))
+                .thenReturn(List.of(previous));
+        CountDownLatch release = new CountDownLatch(1);
+        when(openAiClient.generateReorderExplanations(Mockito.anyList())).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return List.of(Optional.of("Fresh insight"));
+        });
+
+        try {
+            // both requests return straight away while the first regeneration is still blocked
+            assertThat(background.enrich(List.of(basePrediction)).get(0).explanation()).isEqualTo("Previous insight");
+            assertThat(background.enrich(List.of(basePrediction)).get(0).explanation()).isEqualTo("Previous insight");
+            release.countDown();
+
+            verify(reorderInsightRepository, timeout(5000)).upsertAll(Mockito.argThat(insights -> insights.size() == 1
+                    && "Fresh insight".equals(insights.iterator().next().getExplanationText())));
+            verify(openAiClient, Mockito.times(1)).generateReorderExplanations(Mockito.anyList());
+        } finally {
+            refreshQueue.shutdown();
+        }
     }
 
     private String buildFingerprint(ReorderPrediction prediction) {
@@ -82,9 +208,13 @@ class ReorderExplanationServiceTest {
     }
 
     private ReorderPrediction samplePrediction() {
+        return samplePrediction("SKU-42");
+    }
+
+    private ReorderPrediction samplePrediction(String sku) {
         return new ReorderPrediction(
                 "demo-org-a",
-                "SKU-42",
+                sku,
                 "Eco Towels",
                 OffsetDateTime.parse("2024-01-20T12:00:00Z"),
                 10,
@@ -1,18 +1,30 @@
 package com.procuresense.backend.service;
 
+import com.procuresense.backend.config.ReorderProperties;
 import com.procuresense.backend.model.Product;
+import com.procuresense.backend.model.ReorderPage;
 import com.procuresense.backend.model.ReorderPrediction;
 import com.procuresense.backend.repository.ProductRepository;
 import com.procuresense.backend.repository.PurchaseLoadAuditRepository;
 import com.procuresense.backend.repository.PurchaseRepository;
+import com.procuresense.backend.repository.ReorderSkuStatsRepository;
+import com.procuresense.backend.repository.ReorderStatsStateRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Limit;
 import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.io.ByteArrayInputStream;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
 import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -33,11 +45,34 @@ class ReorderInsightServiceTest {
     @Autowired
     private PurchaseLoadAuditRepository purchaseLoadAuditRepository;
 
+    @Autowired
+    private ReorderSkuStatsRepository reorderSkuStatsRepository;
+
+    @Autowired
+    private ReorderStatsStateRepository reorderStatsStateRepository;
+
+    @Autowired
+    private ReorderStatsService reorderStatsService;
+
+    @Autowired
+    private PurchaseImportService purchaseImportService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private Clock clock;
+
+    @Autowired
+    private PurchaseLoadAuditService purchaseLoadAuditService;
+
     @BeforeEach
     void setup() {
         purchaseRepository.deleteAll();
         productRepository.deleteAll();
         purchaseLoadAuditRepository.deleteAll();
+        reorderSkuStatsRepository.deleteAll();
+        reorderStatsStateRepository.deleteAll();
     }
 
     @Test
@@ -79,6 +114,268 @@ class ReorderInsightServiceTest {
         assertThat(predictions).noneMatch(p -> p.sku().equals("SKU-9999"));
     }
 
+    @Test
+    void statsEngineMatchesFullRecomputeAfterIncrementalImports() {
+        ReorderInsightService stats = service(ReorderProperties.Engine.STATS);
+        ReorderInsightService fullRecompute = service(ReorderProperties.Engine.JAVA);
+        importCsv("""
+                order_id,sku,product_name,category,quantity,unit_price,purchased_at
+                ORD-1,SKU-A,Paper,Office,5,3.00,2024-01-01T08:00:00Z
+                ORD-2,SKU-A,Paper,Office,6,3.00,2024-01-11T08:00:00Z
+                ORD-3,SKU-A,Paper,Office,7,3.00,2024-01-31T08:00:00Z
+                ORD-3,SKU-B,Toner,Office,1,40.00,2024-01-31T08:00:00Z
+                """);
+        assertThat(stats.computePredictions("stats-org"))
+                .isEqualTo(fullRecompute.computePredictions("stats-org"));
+        assertThat(reorderStatsStateRepository.existsById("stats-org")).isTrue();
+
+        // an out-of-order purchase splits an existing interval, a repeated row is skipped and two SKUs gain a cadence
+        importCsv("""
+                order_id,sku,product_name,category,quantity,unit_price,purchased_at
+                ORD-4,SKU-A,Paper,Office,9,3.00,2024-01-21T12:00:00+02:00
+                ORD-2,SKU-A,Paper,Office,6,3.00,2024-01-11T08:00:00Z
+                ORD-5,SKU-B,Toner,Office,2,40.00,2024-02-12T08:00:00Z
+                ORD-5,SKU-C,Staples,Office,3,2.00,2024-02-12T08:00:00Z
+                ORD-6,SKU-C,Staples,Office,4,2.00,2024-02-15T20:00:00Z
+                """);
+
+        List<ReorderPrediction> predictions = stats.computePredictions("stats-org");
+        assertThat(predictions).isEqualTo(fullRecompute.computePredictions("stats-org"));
+        assertThat(predictions).extracting(ReorderPrediction::sku).containsExactly("SKU-A", "SKU-C", "SKU-B");
+        assertThat(reorderSkuStatsRepository.findByOrgIdAndSkuIn("stats-org", List.of("SKU-A")))
+                .singleElement()
+                .satisfies(row -> {
+                    assertThat(row.getPurchaseCount()).isEqualTo(4);
+                    assertThat(row.getMinIntervalDays()).isEqualTo(9);
+                    assertThat(row.getMaxIntervalDays()).isEqualTo(10);
+                    assertThat(row.getLastQuantity()).isEqualTo(7);
+                });
+    }
+
+    @Test
+    void sqlEngineMatchesFullRecompute() {
+        importCsv("sql-org", """
+                order_id,sku,product_name,category,quantity,unit_price,purchased_at
+                ORD-1,SKU-A,Paper,Office,5,3.00,2024-01-01T08:00:00Z
+                ORD-2,SKU-A,Paper,Office,6,3.00,2024-01-11T07:59:59Z
+                ORD-3,SKU-A,Paper,Office,7,3.00,2024-01-20T08:00:00+05:00
+                ORD-4,SKU-A,Paper,Office,2,3.00,2024-02-02T08:00:00Z
+                ORD-1,SKU-B,Toner,Office,1,40.00,2024-01-01T08:00:00Z
+                ORD-2,SKU-B,Toner,Office,3,40.00,2024-01-01T08:00:00Z
+                ORD-3,SKU-B,Toner,Office,4,40.00,2024-01-08T09:30:00Z
+                ORD-5,SKU-C,Staples,Office,3,2.00,2024-02-12T08:00:00Z
+                ORD-6,SKU-C,Staples,Office,4,2.00,2024-02-15T20:00:00Z
+                ORD-7,SKU-D,Pens,Office,9,1.00,2024-02-15T20:00:00Z
+                """);
+        ReorderInsightService sql = service(ReorderProperties.Engine.SQL);
+        ReorderInsightService fullRecompute = service(ReorderProperties.Engine.JAVA);
+
+        List<ReorderPrediction> predictions = sql.computePredictions("sql-org");
+
+        assertThat(predictions).hasSize(3);
+        assertThat(predictions).isEqualTo(fullRecompute.computePredictions("sql-org"));
+    }
+
+    @Test
+    void cursorPagesWalkTheFullOrderingForEveryEngine() {
+        StringBuilder csv = new StringBuilder("order_id,sku,product_name,category,quantity,unit_price,purchased_at\n");
+        for (int sku = 0; sku < 12; sku++) {
+            // pairs of SKUs share a predicted date and confidence so the sku tiebreak is exercised
+            int cadence = 3 + sku / 2;
+            for (int purchase = 0; purchase < 3; purchase++) {
+                csv.append("ORD-").append(sku).append('-').append(purchase).append(",SKU-P").append(sku)
+                        .append(",Item ").append(sku).append(",Office,1,1.00,")
+                        .append(OffsetDateTime.parse("2024-01-01T08:00:00Z").plusDays((long) purchase * cadence))
+                        .append('\n');
+            }
+        }
+        importCsv("page-org", csv.toString());
+
+        for (ReorderProperties.Engine engine : ReorderProperties.Engine.values()) {
+            ReorderInsightService service = service(engine);
+            List<ReorderPrediction> expected = service.computePredictions("page-org");
+            List<ReorderPrediction> paged = new java.util.ArrayList<>();
+            String cursor = null;
+            int pages = 0;
+            do {
+                ReorderPage page = service.findPredictions("page-org", 5, cursor);
+                paged.addAll(page.predictions());
+                cursor = page.nextCursor();
+                pages++;
+            } while (cursor != null);
+
+            assertThat(expected).as(engine.name()).hasSize(12);
+            assertThat(paged).as(engine.name()).isEqualTo(expected);
+            assertThat(pages).as(engine.name()).isEqualTo(3);
+        }
+    }
+
+    @Test
+    void parallelSelectionMatchesSequential() {
+        StringBuilder csv = new StringBuilder("order_id,sku,product_name,category,quantity,unit_price,purchased_at\n");
+        for (int sku = 0; sku < 40; sku++) {
+            // every fifth SKU has a single purchase and must be skipped inside its partition
+            int purchases = sku % 5 == 0 ? 1 : 2 + sku % 4;
+            for (int purchase = 0; purchase < purchases; purchase++) {
+                csv.append("ORD-").append(sku).append('-').append(purchase).append(",SKU-F").append(sku)
+                        .append(",Item ").append(sku).append(",Office,1,1.00,")
+                        .append(OffsetDateTime.parse("2024-01-01T08:00:00Z").plusDays((long) purchase * (2 + sku % 7)))
+                        .append('\n');
+            }
+        }
+        importCsv("fork-org", csv.toString());
+
+        for (ReorderProperties.Engine engine : List.of(ReorderProperties.Engine.JAVA, ReorderProperties.Engine.SQL)) {
+            ReorderInsightService sequential = service(new ReorderProperties(engine, null, 1, 0, null, null), clock);
+            ReorderInsightService parallel = service(new ReorderProperties(engine, null, 3, 1, null, null), clock);
+            try {
+                List<ReorderPrediction> expected = sequential.computePredictions("fork-org");
+                assertThat(expected).as(engine.name()).hasSize(32);
+                assertThat(parallel.computePredictions("fork-org")).as(engine.name()).isEqualTo(expected);
+
+                ReorderPage first = parallel.findPredictions("fork-org", 7, null);
+                ReorderPage second = parallel.findPredictions("fork-org", 7, first.nextCursor());
+                assertThat(first.predictions()).as(engine.name()).isEqualTo(expected.subList(0, 7));
+                assertThat(second.predictions()).as(engine.name()).isEqualTo(expected.subList(7, 14));
+            } finally {
+                parallel.shutdown();
+            }
+        }
+    }
+
+    @Test
+    void precomputeBuildsOnlyOrgsWhoseStatisticsAreNotMaintainedByImports() {
+        ReorderPrecomputeScheduler scheduler = new ReorderPrecomputeScheduler(reorderStatsService,
+                reorderStatsStateRepository, new ReorderProperties(ReorderProperties.Engine.STATS, null, 0, 0,
+                new ReorderProperties.Precompute(true, 2), null));
+        ReorderInsightService fullRecompute = service(ReorderProperties.Engine.JAVA);
+        try {
+            importCsv("warm-org", """
+                    order_id,sku,product_name,category,quantity,unit_price,purchased_at
+                    W-1,SKU-W,Wipes,Cleaning,4,2.00,2024-01-01T08:00:00Z
+                    W-2,SKU-W,Wipes,Cleaning,4,2.00,2024-01-08T08:00:00Z
+                    """);
+            assertThat(reorderStatsStateRepository.existsByOrgIdAndBuiltAtIsNotNull("warm-org")).isFalse();
+
+            assertThat(scheduler.refreshStaleOrgs()).isEqualTo(1);
+            OffsetDateTime firstBuild = reorderStatsStateRepository.findById("warm-org").orElseThrow().getBuiltAt();
+            assertThat(scheduler.refreshStaleOrgs()).isZero();
+
+            // the import merges its rows and advances built_at, so the org needs no rebuild
+            importCsv("warm-org", """
+                    order_id,sku,product_name,category,quantity,unit_price,purchased_at
+                    W-3,SKU-W,Wipes,Cleaning,4,2.00,2024-01-17T08:00:00Z
+                    W-4,SKU-V,Vinegar,Cleaning,1,3.00,2024-01-02T08:00:00Z
+                    W-5,SKU-V,Vinegar,Cleaning,1,3.00,2024-01-05T08:00:00Z
+                    """);
+            assertThat(reorderStatsStateRepository.findStaleOrgIds()).isEmpty();
+            assertThat(scheduler.refreshStaleOrgs()).isZero();
+            assertThat(reorderStatsStateRepository.findById("warm-org").orElseThrow().getBuiltAt())
+                    .isAfterOrEqualTo(firstBuild);
+            assertThat(reorderStatsService.findPredictions("warm-org", null, Limit.unlimited()))
+                    .isEqualTo(fullRecompute.computePredictions("warm-org"));
+
+            new TransactionTemplate(transactionManager)
+                    .executeWithoutResult(status -> reorderStatsService.reset("warm-org"));
+            assertThat(reorderStatsStateRepository.findStaleOrgIds()).containsExactly("warm-org");
+            assertThat(scheduler.refreshStaleOrgs()).isEqualTo(1);
+            assertThat(reorderStatsService.findPredictions("warm-org", null, Limit.unlimited()))
+                    .isEqualTo(fullRecompute.computePredictions("warm-org"));
+        } finally {
+            scheduler.shutdown();
+        }
+    }
+
+    @Test
+    void rebuildStampsItsStateWithTheInjectedClock() {
+        importCsv("clock-org", """
+                order_id,sku,product_name,category,quantity,unit_price,purchased_at
+                K-1,SKU-K,Kraft Tape,Office,1,1.00,2024-01-01T08:00:00Z
+                K-2,SKU-K,Kraft Tape,Office,1,1.00,2024-01-08T08:00:00Z
+                """);
+        OffsetDateTime builtAt = OffsetDateTime.parse("2030-06-01T12:00:00Z");
+        ReorderStatsService stats = new ReorderStatsService(reorderSkuStatsRepository, reorderStatsStateRepository,
+                purchaseRepository, transactionManager, Clock.fixed(builtAt.toInstant(), ZoneOffset.UTC));
+
+        stats.rebuild("clock-org");
+
+        assertThat(reorderStatsStateRepository.findById("clock-org").orElseThrow().getBuiltAt())
+                .isEqualTo(builtAt);
+        assertThat(reorderStatsStateRepository.findStaleOrgIds()).doesNotContain("clock-org");
+    }
+
+    @Test
+    void cachedPredictionsPickUpAProductRenamedByAnotherOrgsImport() {
+        importCsv("rename-org-a", """
+                order_id,sku,product_name,category,quantity,unit_price,purchased_at
+                A-1,SKU-R,Towels,Paper,2,4.00,2024-01-01T09:00:00Z
+                A-2,SKU-R,Towels,Paper,2,4.00,2024-01-08T09:00:00Z
+                A-3,SKU-R,Towels,Paper,2,4.00,2024-01-15T09:00:00Z
+                """);
+        assertThat(reorderInsightService.computePredictions("rename-org-a"))
+                .extracting(ReorderPrediction::productName).containsExactly("Towels");
+
+        importCsv("rename-org-b", """
+                order_id,sku,product_name,category,quantity,unit_price,purchased_at
+                B-1,SKU-R,Eco Towels,Paper,1,4.00,2024-02-01T09:00:00Z
+                """);
+
+        assertThat(reorderInsightService.computePredictions("rename-org-a"))
+                .extracting(ReorderPrediction::productName).containsExactly("Eco Towels");
+    }
+
+    @Test
+    void lookbackWindowIgnoresOlderPurchasesOnEveryEngine() {
+        importCsv("window-org", """
+                order_id,sku,product_name,category,quantity,unit_price,purchased_at
+                L-1,SKU-L,Labels,Office,1,1.00,2021-01-01T08:00:00Z
+                L-2,SKU-L,Labels,Office,1,1.00,2021-04-01T08:00:00Z
+                L-3,SKU-L,Labels,Office,2,1.00,2024-02-01T08:00:00Z
+                L-4,SKU-L,Labels,Office,2,1.00,2024-02-06T08:00:00Z
+                L-5,SKU-L,Labels,Office,2,1.00,2024-02-11T08:00:00Z
+                O-1,SKU-O,Old Stock,Office,1,1.00,2021-01-01T08:00:00Z
+                O-2,SKU-O,Old Stock,Office,1,1.00,2021-01-15T08:00:00Z
+                """);
+        Clock march = Clock.fixed(OffsetDateTime.parse("2024-03-01T00:00:00Z").toInstant(), ZoneOffset.UTC);
+
+        for (ReorderProperties.Engine engine : ReorderProperties.Engine.values()) {
+            ReorderInsightService windowed = service(
+                    new ReorderProperties(engine, Duration.ofDays(90), 0, 0, null, null), march);
+            ReorderInsightService unbounded = service(new ReorderProperties(engine, null, 0, 0, null, null), march);
+
+            List<ReorderPrediction> recent = windowed.computePredictions("window-org");
+            assertThat(recent).as(engine.name()).singleElement().satisfies(prediction -> {
+                assertThat(prediction.sku()).isEqualTo("SKU-L");
+                assertThat(prediction.medianDaysBetween()).isEqualTo(5);
+                assertThat(prediction.confidence()).isEqualTo(0.8);
+            });
+            assertThat(unbounded.computePredictions("window-org")).as(engine.name()).hasSize(2);
+            assertThat(unbounded.findPredictions("window-org", 10, null, 90).predictions())
+                    .as(engine.name()).isEqualTo(recent);
+            assertThat(windowed.findPredictions("window-org", 10, null, 2000).predictions())
+                    .as(engine.name()).hasSize(2);
+        }
+    }
+
+    private ReorderInsightService service(ReorderProperties.Engine engine) {
+        return service(new ReorderProperties(engine, null, 0, 0, null, null), clock);
+    }
+
+    private ReorderInsightService service(ReorderProperties properties, Clock clock) {
+        // a cache per instance, so engines are never compared against each other's entries
+        return new ReorderInsightService(purchaseRepository, reorderStatsService, properties, transactionManager, clock,
+                new ReorderPredictionCache(purchaseLoadAuditService, 16));
+    }
+
+    private void importCsv(String csv) {
+        importCsv("stats-org", csv);
+    }
+
+    private void importCsv(String orgId, String csv) {
+        purchaseImportService.importCsv(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), "text/csv",
+                orgId, null, ImportProgressListener.NONE);
+    }
+
     private Product buildProduct(String sku, String name) {
         Product product = new Product();
         product.setSku(sku);
@@ -0,0 +1,97 @@
+package com.procuresense.backend.service;
+
+import com.procuresense.backend.model.ReorderPrediction;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+class ReorderPredictionCacheTest {
+
+    private static final OffsetDateTime FIRST_LOAD = OffsetDateTime.parse("2024-03-01T08:00:00Z");
+    private static final OffsetDateTime SECOND_LOAD = OffsetDateTime.parse("2024-03-02T08:00:00Z");
+
+    private final PurchaseLoadAuditService audits = Mockito.mock(PurchaseLoadAuditService.class);
+    private final AtomicInteger computations = new AtomicInteger();
+
+    @Test
+    void servesEntriesUntilTheLoadVersionChangesOrTheOrgIsInvalidated() {
+        ReorderPredictionCache cache = new ReorderPredictionCache(audits, 4);
+        when(audits.getLastLoadedAt("org-a")).thenReturn(FIRST_LOAD);
+
+        List<ReorderPrediction> first = cache.get("org-a", compute("SKU-1"));
+        assertThat(cache.get("org-a", compute("SKU-2"))).isSameAs(first);
+        assertThat(computations).hasValue(1);
+
+        when(audits.getLastLoadedAt("org-a")).thenReturn(SECOND_LOAD);
+        assertThat(cache.get("org-a", compute("SKU-3"))).extracting(ReorderPrediction::sku).containsExactly("SKU-3");
+        assertThat(cache.get("org-a", compute("SKU-4"))).extracting(ReorderPrediction::sku).containsExactly("SKU-3");
+
+        cache.invalidate("org-a");
+        assertThat(cache.get("org-a", compute("SKU-5"))).extracting(ReorderPrediction::sku).containsExactly("SKU-5");
+        assertThat(computations).hasValue(3);
+    }
+
+    @Test
+    void evictsTheLeastRecentlyUsedOrgAndNeverCachesUnversionedOrgs() {
+        ReorderPredictionCache cache = new ReorderPredictionCache(audits, 2);
+        for (String org : List.of("org-a", "org-b", "org-c")) {
+            when(audits.getLastLoadedAt(org)).thenReturn(FIRST_LOAD);
+        }
+
+        cache.get("org-a", compute("SKU-A"));
+        cache.get("org-b", compute("SKU-B"));
+        cache.get("org-a", compute("SKU-A"));
+        cache.get("org-c", compute("SKU-C"));
+        assertThat(computations).hasValue(3);
+
+        cache.get("org-a", compute("SKU-A"));
+        assertThat(computations).hasValue(3);
+        cache.get("org-b", compute("SKU-B"));
+        assertThat(computations).hasValue(4);
+
+        cache.get("org-unloaded", compute("SKU-U"));
+        cache.get("org-unloaded", compute("SKU-U"));
+        assertThat(computations).hasValue(6);
+    }
+
+    @Test
+    void invalidateAllDropsEveryOrgAndKeepsListsComputedBeforeItOut() {
+        ReorderPredictionCache cache = new ReorderPredictionCache(audits, 4);
+        for (String org : List.of("org-a", "org-b")) {
+            when(audits.getLastLoadedAt(org)).thenReturn(FIRST_LOAD);
+        }
+        cache.get("org-a", compute("SKU-A"));
+        cache.get("org-b", compute("SKU-B"));
+
+        cache.invalidateAll();
+        cache.get("org-a", compute("SKU-A"));
+        cache.get("org-b", compute("SKU-B"));
+        assertThat(computations).hasValue(4);
+
+        // a rename landing while the list is computed leaves it unserved
+        cache.invalidateAll();
+        Supplier<List<ReorderPrediction>> renamedMeanwhile = () -> {
+            List<ReorderPrediction> stale = compute("SKU-A").get();
+            cache.invalidateAll();
+            return stale;
+        };
+        cache.get("org-a", renamedMeanwhile);
+        cache.get("org-a", compute("SKU-A"));
+        assertThat(computations).hasValue(6);
+    }
+
+    private Supplier<List<ReorderPrediction>> compute(String sku) {
+        return () -> {
+            computations.incrementAndGet();
+            OffsetDateTime last = OffsetDateTime.parse("2024-02-01T08:00:00Z");
+            return List.of(new ReorderPrediction("org", sku, "Item", last, 7, last.plusDays(7), 0.8, 1, null));
+        };
+    }
+}
@@ -0,0 +1,65 @@
+package com.procuresense.backend.service.ai;
+
+import com.procuresense.backend.config.OpenAiProperties;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OpenAiCircuitBreakerTest {
+
+    private static final long FAST = Duration.ofMillis(200).toNanos();
+    private static final long SLOW = Duration.ofSeconds(12).toNanos();
+
+    private final AtomicLong now = new AtomicLong();
+    private final OpenAiCircuitBreaker breaker = new OpenAiCircuitBreaker(
+            new OpenAiProperties.CircuitBreaker(4, 4, 0.5, Duration.ofSeconds(10), 0.75, Duration.ofSeconds(30)),
+            now::get);
+
+    @Test
+    void opensOnErrorRateAndClosesAfterASuccessfulTrial() {
+        call(true, FAST);
+        call(false, FAST);
+        call(false, FAST);
+        assertThat(breaker.state()).isEqualTo(OpenAiCircuitBreaker.State.CLOSED);
+        call(true, FAST);
+        assertThat(breaker.isOpen()).isTrue();
+        assertThat(breaker.tryAcquire()).isFalse();
+
+        now.addAndGet(Duration.ofSeconds(31).toNanos());
+        assertThat(breaker.tryAcquire()).isTrue();
+        // only one trial call at a time
+        assertThat(breaker.tryAcquire()).isFalse();
+        breaker.onSuccess(FAST);
+
+        assertThat(breaker.state()).isEqualTo(OpenAiCircuitBreaker.State.CLOSED);
+        assertThat(breaker.tryAcquire()).isTrue();
+    }
+
+    @Test
+    void opensOnSlowCallsAndStaysOpenWhenTheTrialIsSlow() {
+        call(false, SLOW);
+        call(false, SLOW);
+        call(false, FAST);
+        call(false, SLOW);
+        assertThat(breaker.isOpen()).isTrue();
+
+        now.addAndGet(Duration.ofSeconds(31).toNanos());
+        assertThat(breaker.tryAcquire()).isTrue();
+        breaker.onSuccess(SLOW);
+
+        assertThat(breaker.isOpen()).isTrue();
+        assertThat(breaker.tryAcquire()).isFalse();
+    }
+
+    private void call(boolean failed, long elapsedNanos) {
+        assertThat(breaker.tryAcquire()).isTrue();
+        if (failed) {
+            breaker.onFailure(elapsedNanos);
+        } else {
+            breaker.onSuccess(elapsedNanos);
+        }
+    }
+}
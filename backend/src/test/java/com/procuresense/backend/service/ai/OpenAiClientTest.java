@@ -0,0 +1,170 @@
+package com.procuresense.backend.service.ai;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.procuresense.backend.config.OpenAiProperties;
+import com.procuresense.backend.model.OpenAiTransportStats;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.client.RestClient;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class OpenAiClientTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final AtomicReference<String> replyText = new AtomicReference<>();
+    private final AtomicLong replyDelayMillis = new AtomicLong();
+    private final AtomicInteger replyStatus = new AtomicInteger(200);
+    private final AtomicInteger hits = new AtomicInteger();
+    private final OpenAiTransportMetrics metrics = new OpenAiTransportMetrics();
+    private HttpServer server;
+    private OpenAiHttpTransport transport;
+    private OpenAiClient client;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/responses", exchange -> {
+            hits.incrementAndGet();
+            try {
+                Thread.sleep(replyDelayMillis.get());
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            byte[] body = objectMapper.writeValueAsBytes(Map.of("output", List.of(
+                    Map.of("content", List.of(Map.of("type", "output_text", "text", replyText.get()))))));
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(replyStatus.get(), body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+        OpenAiProperties properties = properties(null);
+        transport = new OpenAiHttpTransport(properties, metrics);
+        client = new OpenAiClient(properties, RestClient.builder(), objectMapper, transport, metrics,
+                new OpenAiCircuitBreaker(properties), new OpenAiRateLimiter(properties));
+    }
+
+    @AfterEach
+    void stopServer() {
+        transport.shutdown();
+        server.stop(0);
+    }
+
+    @Test
+    void batchReplyIsMatchedBackToItsPromptsById() {
+        replyText.set("""
+                ```json
+                [{"id": 2, "text": " Tape pairs with boxes. "}, {"id": 0, "text": "Gloves pair with wipes."}]
+                ```""");
+
+        List<Optional<String>> rationales = client.generateBundleRationales(List.of(
+                prompt("SKU-2"), prompt("SKU-3"), prompt("SKU-4")));
+
+        assertThat(rationales).containsExactly(Optional.of("Gloves pair with wipes."), Optional.empty(),
+                Optional.of("Tape pairs with boxes."));
+    }
+
+    @Test
+    void malformedBatchReplyLeavesEveryItemEmpty() {
+        replyText.set("Sorry, here are your rationales: [{\"id\": 0, \"text\": ");
+
+        List<Optional<String>> rationales = client.generateBundleRationales(List.of(prompt("SKU-2"), prompt("SKU-3")));
+
+        assertThat(rationales).containsExactly(Optional.empty(), Optional.empty());
+    }
+
+    @Test
+    void slowUpstreamIsCutOffAtTheOperationDeadline() {
+        replyText.set("Too late to matter.");
+        replyDelayMillis.set(2_000);
+
+        long started = System.nanoTime();
+        List<Optional<String>> rationales = client.generateBundleRationales(List.of(prompt("SKU-2")));
+
+        assertThat(rationales).containsExactly(Optional.empty());
+        assertThat(Duration.ofNanos(System.nanoTime() - started)).isLessThan(Duration.ofMillis(1_500));
+        OpenAiTransportStats.OperationStats stats = metrics.snapshot("CLOSED", transport.poolStats()).operations()
+                .get("bundle-rationale");
+        assertThat(stats.requests()).isEqualTo(1);
+        assertThat(stats.failures()).isEqualTo(1);
+        assertThat(stats.timeouts()).isEqualTo(1);
+    }
+
+    @Test
+    void failingUpstreamOpensTheCircuitAndLaterCallsNeverLeaveTheProcess() {
+        replyText.set("unused");
+        replyStatus.set(503);
+
+        assertThat(client.generateBundleRationales(List.of(prompt("SKU-2")))).containsExactly(Optional.empty());
+        assertThat(client.isCircuitOpen()).isFalse();
+        assertThat(client.generateBundleRationales(List.of(prompt("SKU-3")))).containsExactly(Optional.empty());
+        assertThat(client.isCircuitOpen()).isTrue();
+
+        replyStatus.set(200);
+        assertThat(client.generateBundleRationales(List.of(prompt("SKU-4")))).singleElement().isNull();
+        assertThat(hits).hasValue(2);
+        assertThat(metrics.snapshot("OPEN", transport.poolStats()).operations().get("bundle-rationale").rejected()).isEqualTo(1);
+    }
+
+    @Test
+    void batchRefusedByAnExhaustedRateLimiterIsReportedAsNullsRatherThanAnsweredEmpty() {
+        replyText.set("[{\"id\": 0, \"text\": \"Gloves pair with wipes.\"}, {\"id\": 1, \"text\": \"Tape too.\"}]");
+        OpenAiProperties properties = properties(new OpenAiProperties.RateLimit(1, 1, Duration.ZERO));
+        OpenAiClient limited = new OpenAiClient(properties, RestClient.builder(), objectMapper, transport, metrics,
+                new OpenAiCircuitBreaker(properties), new OpenAiRateLimiter(properties));
+
+        assertThat(limited.generateBundleRationales(List.of(prompt("SKU-2"), prompt("SKU-3"))))
+                .containsExactly(Optional.of("Gloves pair with wipes."), Optional.of("Tape too."));
+        assertThat(limited.generateBundleRationales(List.of(prompt("SKU-4"), prompt("SKU-5"))))
+                .hasSize(2).containsOnlyNulls();
+        assertThat(hits).hasValue(1);
+        assertThat(metrics.snapshot("CLOSED", transport.poolStats()).operations().get("bundle-rationale-batch").rejected())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void sequentialCallsReuseOnePooledConnection() {
+        replyText.set("Gloves pair with wipes.");
+
+        for (String relatedSku : List.of("SKU-2", "SKU-3", "SKU-4")) {
+            assertThat(client.generateBundleRationales(List.of(prompt(relatedSku))))
+                    .containsExactly(Optional.of("Gloves pair with wipes."));
+        }
+
+        OpenAiTransportStats.Connections connections = metrics.snapshot("CLOSED", transport.poolStats()).connections();
+        assertThat(connections.opened()).isEqualTo(1);
+        assertThat(connections.openedPerRequest()).isCloseTo(1 / 3.0, within(1e-9));
+        assertThat(connections.leased()).isZero();
+        assertThat(connections.available()).isEqualTo(1);
+        assertThat(connections.max()).isEqualTo(2);
+    }
+
+    private OpenAiProperties properties(OpenAiProperties.RateLimit rateLimit) {
+        return new OpenAiProperties(true, "test-key",
+                "http://localhost:" + server.getAddress().getPort(), "gpt-4o-mini", 0.2, 150, 0, 0, null,
+                new OpenAiProperties.Http(null, Duration.ofMillis(300), null, 2, null),
+                new OpenAiProperties.CircuitBreaker(4, 2, 0.5, null, 0, Duration.ofMinutes(1)), rateLimit);
+    }
+
+    private BundleRationalePrompt prompt(String relatedSku) {
+        return new BundleRationalePrompt("SKU-1", "Eco Wipes", relatedSku, null, 3);
+    }
+}
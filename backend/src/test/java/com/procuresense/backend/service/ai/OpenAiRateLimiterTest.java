@@ -0,0 +1,42 @@
+package com.procuresense.backend.service.ai;
+
+import com.procuresense.backend.config.OpenAiProperties;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OpenAiRateLimiterTest {
+
+    private final AtomicLong now = new AtomicLong();
+    private final OpenAiRateLimiter limiter = new OpenAiRateLimiter(
+            new OpenAiProperties.RateLimit(60, 2, Duration.ZERO), now::get);
+
+    @Test
+    void refusesOnceTheBurstIsSpentUntilTokensRefill() {
+        assertThat(limiter.tryAcquire()).isTrue();
+        assertThat(limiter.tryAcquire()).isTrue();
+        assertThat(limiter.tryAcquire()).isFalse();
+
+        now.addAndGet(Duration.ofSeconds(1).toNanos());
+
+        assertThat(limiter.tryAcquire()).isTrue();
+        assertThat(limiter.tryAcquire()).isFalse();
+    }
+
+    @Test
+    void halvesTheRateWhenThrottledAndRecoversOnSuccess() {
+        limiter.onThrottled();
+        assertThat(limiter.requestsPerMinute()).isEqualTo(30);
+        now.addAndGet(Duration.ofSeconds(1).toNanos());
+        assertThat(limiter.tryAcquire()).isFalse();
+
+        for (int i = 0; i < 20; i++) {
+            limiter.onSuccess();
+        }
+
+        assertThat(limiter.requestsPerMinute()).isEqualTo(60);
+    }
+}
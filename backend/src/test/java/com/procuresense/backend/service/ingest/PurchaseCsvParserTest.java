@@ -0,0 +1,87 @@
+package com.procuresense.backend.service.ingest;
+
+import com.procuresense.backend.service.exception.CsvValidationException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PurchaseCsvParserTest {
+
+    private final PurchaseCsvParser sequential = new PurchaseCsvParser(1);
+    private final PurchaseCsvParser parallel = new PurchaseCsvParser(4);
+
+    @AfterEach
+    void tearDown() {
+        parallel.shutdown();
+    }
+
+    @Test
+    void parallelParseMatchesSequentialRowsAndRecordNumbers() throws IOException {
+        StringBuilder csv = new StringBuilder("Order_Id,SKU,product_name,category,quantity,unit_price,purchased_at\r\n");
+        for (int i = 1; i <= 10_000; i++) {
+            if (i % 997 == 0) {
+                csv.append("\n");
+            }
+            if (i % 1_301 == 0) {
+                csv.append("ORD-").append(i).append(",SKU-1\n");
+            } else if (i % 701 == 0) {
+                csv.append("ORD-").append(i).append(",SKU-").append(i % 50).append(",Widget,Tools,zero,4.50,2024-01-01T00:00:00Z\n");
+            } else if (i % 503 == 0) {
+                csv.append("ORD-").append(i).append(",SKU-").append(i % 50)
+                        .append(",\"Multi\r\nline, \"\"quoted\"\" name\",Tools,2,4.50,2024-01-01T00:00:00Z\r\n");
+            } else {
+                csv.append("ORD-").append(i).append(",SKU-").append(i % 50).append(",Widget,Tools,")
+                        .append(i % 7 + 1).append(",4.50,2024-01-01T00:00:00Z\n");
+            }
+        }
+        csv.append("ORD-last,SKU-1,Widget,Tools,1,4.50,2024-01-01T00:00:00Z");
+
+        Collected expected = parse(sequential, csv.toString());
+        Collected actual = parse(parallel, csv.toString());
+
+        assertThat(actual.rows).isEqualTo(expected.rows);
+        assertThat(actual.rejections).isEqualTo(expected.rejections);
+        assertThat(expected.rows).hasSize(10_001 - 7 - 14);
+        assertThat(expected.rejections).contains(
+                "Row 701: quantity must be an integer",
+                "Row 1301: Index for header 'product_name' is 2 but CSVRecord only has 2 values!");
+        assertThat(expected.rows).anySatisfy(row ->
+                assertThat(row.productName()).isEqualTo("Multi\r\nline, \"quoted\" name"));
+    }
+
+    @Test
+    void missingColumnsAreRejectedInBothModes() {
+        String csv = "order_id,sku\nORD-1,SKU-1\n";
+
+        assertThatThrownBy(() -> parse(sequential, csv)).isInstanceOf(CsvValidationException.class);
+        assertThatThrownBy(() -> parse(parallel, csv)).isInstanceOf(CsvValidationException.class);
+    }
+
+    private Collected parse(PurchaseCsvParser parser, String csv) throws IOException {
+        Collected collected = new Collected();
+        parser.parse(new StringReader(csv), collected);
+        return collected;
+    }
+
+    private static class Collected implements RowSink {
+        private final List<PurchaseRow> rows = new ArrayList<>();
+        private final List<String> rejections = new ArrayList<>();
+
+        @Override
+        public void accept(PurchaseRow row) {
+            rows.add(row);
+        }
+
+        @Override
+        public void reject(long recordNumber, String message) {
+            rejections.add("Row " + recordNumber + ": " + message);
+        }
+    }
+}
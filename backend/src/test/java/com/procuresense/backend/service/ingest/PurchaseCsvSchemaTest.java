@@ -0,0 +1,132 @@
+package com.procuresense.backend.service.ingest;
+
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVParser;
+import org.apache.commons.csv.CSVRecord;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PurchaseCsvSchemaTest {
+
+    @Test
+    void integerFastPathMatchesIntegerParseInt() {
+        List<String> values = List.of("1", "42", "+7", "-3", "0", "-0", "007", "2147483647", "2147483648",
+                "-2147483648", "-2147483649", "99999999999999999999", "", "+", "-", "1.0", "1e3", "12a",
+                " 4", "١٢", "٣x");
+        for (String value : values) {
+            Long expected;
+            try {
+                expected = (long) Integer.parseInt(value);
+            } catch (NumberFormatException e) {
+                expected = FieldParsers.INVALID_INT;
+            }
+            assertThat(FieldParsers.parseInt(value)).as(value).isEqualTo(expected);
+        }
+    }
+
+    @Test
+    void decimalFastPathMatchesBigDecimal() {
+        List<String> values = List.of("12.50", "0.01", "-0.00", "+3.5", ".5", "5.", "-.25", "1234567890123456789.5",
+                "1e3", "2.5E-2", "", ".", "+", "1.2.3", "1,5", "abc", "12 5", "-", "٣.٥");
+        for (String value : values) {
+            BigDecimal expected;
+            try {
+                expected = new BigDecimal(value);
+            } catch (NumberFormatException e) {
+                expected = null;
+            }
+            assertThat(FieldParsers.parseDecimal(value)).as(value).isEqualTo(expected);
+        }
+    }
+
+    @Test
+    void timestampFastPathMatchesOffsetDateTimeParse() {
+        TimestampParser parser = new TimestampParser();
+        List<String> values = List.of("2024-02-01T09:00:00Z", "2024-02-01T09:00Z", "2024-02-01T09:00:00.5Z",
+                "2024-02-01T09:00:00.123456789+05:30", "2024-02-01T09:00:00-08:00", "2024-02-29T23:59:59Z",
+                "2023-02-29T10:00:00Z", "2024-13-01T10:00:00Z", "2024-04-31T10:00:00Z", "2024-02-01T24:00:00Z",
+                "2024-02-01T09:60:00Z", "2024-02-01T09:00:00+18:00", "2024-02-01T09:00:00+19:00",
+                "2024-02-01T09:00:00+02", "2024-02-01T09:00:00.Z", "2024-02-01t09:00:00z",
+                "2024-02-01T09:00:00.1234567891Z", "+12024-02-01T09:00:00Z", "2024-02-01", "2024/02/01T09:00:00Z",
+                "01/02/2024", "not-a-date", "", "2024-02-01 09:00:00Z", "2024-02-01T09:00:00+05:30:15");
+        for (int pass = 0; pass < 2; pass++) {
+            for (String value : values) {
+                OffsetDateTime expected;
+                try {
+                    expected = OffsetDateTime.parse(value);
+                } catch (Exception e) {
+                    expected = null;
+                }
+                assertThat(parser.parse(value)).as(value).isEqualTo(expected);
+            }
+        }
+    }
+
+    @Test
+    void timestampRejectedWithoutTheJdkOnlyWhenNoYearLeadsTheValue() {
+        TimestampParser parser = new TimestampParser();
+        List<String> values = List.of("01/02/2024", "1/2/24", "2024", "202", "2", "2024.02.01T09:00:00Z",
+                "20240201T090000Z", "20245-02-01T09:00:00Z", "+20245-02-01T09:00:00Z", "-2024-02-01T09:00:00Z",
+                "+2024-02-01T09:00:00Z", "2024-2-1T09:00:00Z", "24-02-01T09:00:00Z", " 2024-02-01T09:00:00Z",
+                "١٢٣٤-02-01T09:00:00Z", "T09:00:00Z", "Z");
+        for (String value : values) {
+            OffsetDateTime expected;
+            try {
+                expected = OffsetDateTime.parse(value);
+            } catch (Exception e) {
+                expected = null;
+            }
+            assertThat(parser.parse(value)).as(value).isEqualTo(expected);
+        }
+    }
+
+    @Test
+    void rowErrorsKeepTheirMessagesAndOrder() throws IOException {
+        PurchaseCsvSchema schema = PurchaseCsvSchema.fromHeaderMap(Map.of(
+                "order_id", 0, "sku", 1, "product_name", 2, "category", 3,
+                "quantity", 4, "unit_price", 5, "purchased_at", 6));
+        String csv = """
+                ORD-1,SKU-1,Tape,Supplies,2,3.10,2024-02-01T10:00:00Z
+                ,SKU-1,Tape,Supplies,2,3.10,2024-02-01T10:00:00Z
+                ORD-3,SKU-1,Tape,Supplies,two,-1,bad
+                ORD-4,SKU-1,Tape,Supplies,2,0.00,2024-02-01T10:00:00Z
+                ORD-5,SKU-1,Tape,Supplies,2,3.10,2024-02-30T10:00:00Z
+                ORD-6,SKU-1,Tape
+                """;
+        List<String> results = new ArrayList<>();
+        RowSink sink = new RowSink() {
+            @Override
+            public void accept(PurchaseRow row) {
+                results.add("ok " + row.orderId() + " " + row.unitPrice() + " " + row.purchasedAt());
+            }
+
+            @Override
+            public void reject(long recordNumber, String message) {
+                results.add(recordNumber + " " + message);
+            }
+        };
+
+        try (CSVParser parser = CSVFormat.DEFAULT.parse(new StringReader(csv))) {
+            for (CSVRecord record : parser) {
+                schema.toRow(record, record.getRecordNumber(), sink);
+            }
+        }
+
+        assertThat(results).containsExactly(
+                "ok ORD-1 3.10 2024-02-01T10:00Z",
+                "2 order_id is required",
+                "3 quantity must be an integer",
+                "4 unit_price must be greater than zero",
+                "5 purchased_at must be ISO-8601",
+                "6 Index for header 'category' is 3 but CSVRecord only has 3 values!");
+    }
+}